@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches a handle taking its receiver and arguments in a single array for each method. Handles are kept in a {@link ClassValue} of the declaring class, so they do not
+ * prevent its class loader from being collected. Methods with primitive parameters are invoked by reflection, which applies the widening conversions of
+ * {@link Method#invoke(Object, Object...)}.
+ * @author Gael Lalire
+ */
+final class MethodHandleInvoker extends MethodInvoker {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * Handle of a method, or no handle if it must be invoked by reflection.
+     */
+    private static final class Entry {
+
+        private final MethodHandle methodHandle;
+
+        private final Class<?>[] parameterTypes;
+
+        private final boolean isStatic;
+
+        Entry(final MethodHandle methodHandle, final Class<?>[] parameterTypes, final boolean isStatic) {
+            this.methodHandle = methodHandle;
+            this.parameterTypes = parameterTypes;
+            this.isStatic = isStatic;
+        }
+
+    }
+
+    private static final Entry REFLECTIVE_ENTRY = new Entry(null, null, false);
+
+    /**
+     * Entries of the methods declared by a class, and the main method if the class was run.
+     */
+    private static final class ClassEntries {
+
+        private final ConcurrentHashMap<Method, Entry> entries = new ConcurrentHashMap<Method, Entry>();
+
+        private volatile Method mainMethod;
+
+    }
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private final ClassValue<ClassEntries> entriesByClass = new ClassValue<ClassEntries>() {
+        @Override
+        protected ClassEntries computeValue(final Class<?> type) {
+            return new ClassEntries();
+        }
+    };
+
+    private Entry createEntry(final Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (Class<?> parameterType : parameterTypes) {
+            if (parameterType.isPrimitive()) {
+                return REFLECTIVE_ENTRY;
+            }
+        }
+        MethodHandle methodHandle;
+        try {
+            methodHandle = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            return REFLECTIVE_ENTRY;
+        }
+        // a variable arity handle would collect the spread arguments again
+        methodHandle = methodHandle.asFixedArity();
+        methodHandle = methodHandle.asType(methodHandle.type().generic());
+        methodHandle = methodHandle.asSpreader(Object[].class, methodHandle.type().parameterCount());
+        return new Entry(methodHandle, parameterTypes, Modifier.isStatic(method.getModifiers()));
+    }
+
+    @Override
+    Method doGetMainMethod(final Class<?> mainClass) throws NoSuchMethodException {
+        ClassEntries classEntries = entriesByClass.get(mainClass);
+        Method mainMethod = classEntries.mainMethod;
+        if (mainMethod == null) {
+            mainMethod = findMainMethod(mainClass);
+            classEntries.mainMethod = mainMethod;
+        }
+        return mainMethod;
+    }
+
+    @Override
+    Object doInvoke(final Method method, final Object obj, final Object[] args) throws IllegalAccessException, InvocationTargetException {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (!method.isAccessible() && !(Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers()))) {
+            // access is checked for each invocation
+            return method.invoke(obj, args);
+        }
+        ConcurrentHashMap<Method, Entry> entries = entriesByClass.get(declaringClass).entries;
+        Entry entry = entries.get(method);
+        if (entry == null) {
+            entry = createEntry(method);
+            entries.put(method, entry);
+        }
+        if (entry.methodHandle == null) {
+            return method.invoke(obj, args);
+        }
+
+        Object[] arguments = args;
+        if (arguments == null) {
+            arguments = NO_ARGUMENTS;
+        }
+        Class<?>[] parameterTypes = entry.parameterTypes;
+        if (arguments.length != parameterTypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = arguments[i];
+            if (argument != null && !parameterTypes[i].isInstance(argument)) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+        Object[] spreadArguments;
+        if (entry.isStatic) {
+            spreadArguments = arguments;
+        } else {
+            if (obj == null) {
+                throw new NullPointerException();
+            }
+            if (!declaringClass.isInstance(obj)) {
+                throw new IllegalArgumentException("object is not an instance of declaring class");
+            }
+            spreadArguments = new Object[arguments.length + 1];
+            spreadArguments[0] = obj;
+            System.arraycopy(arguments, 0, spreadArguments, 1, arguments.length);
+        }
+        try {
+            return (Object) entry.methodHandle.invokeExact(spreadArguments);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+}
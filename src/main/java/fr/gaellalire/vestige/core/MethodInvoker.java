@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes methods with the contract of {@link Method#invoke(Object, Object...)}. From jdk 7 a method handle is cached for each method, so repeated invocations skip the
+ * reflective accessor. Before jdk 7, or when no handle can be used, the method is invoked by reflection.
+ * @author Gael Lalire
+ */
+public abstract class MethodInvoker {
+
+    private static final MethodInvoker INSTANCE;
+
+    static {
+        MethodInvoker methodInvoker;
+        try {
+            // loaded by name, so its java.lang.invoke references are not resolved before jdk 7
+            methodInvoker = (MethodInvoker) Class.forName("fr.gaellalire.vestige.core.MethodHandleInvoker").newInstance();
+        } catch (Throwable e) {
+            methodInvoker = new MethodInvoker() {
+                @Override
+                Object doInvoke(final Method method, final Object obj, final Object[] args) throws IllegalAccessException, InvocationTargetException {
+                    return method.invoke(obj, args);
+                }
+            };
+        }
+        INSTANCE = methodInvoker;
+    }
+
+    MethodInvoker() {
+    }
+
+    abstract Object doInvoke(Method method, Object obj, Object[] args) throws IllegalAccessException, InvocationTargetException;
+
+    Method doGetMainMethod(final Class<?> mainClass) throws NoSuchMethodException {
+        return findMainMethod(mainClass);
+    }
+
+    static Method findMainMethod(final Class<?> mainClass) throws NoSuchMethodException {
+        try {
+            return mainClass.getMethod("vestigeCoreMain", VestigeCoreContext.class, String[].class);
+        } catch (NoSuchMethodException e) {
+            return mainClass.getMethod("main", String[].class);
+        }
+    }
+
+    /**
+     * From jdk 7 the method is cached for each class, so restarting an application does not look it up again.
+     * @return the public vestigeCoreMain(VestigeCoreContext, String[]) method of the class, or its public main(String[]) method
+     */
+    static Method getMainMethod(final Class<?> mainClass) throws NoSuchMethodException {
+        return INSTANCE.doGetMainMethod(mainClass);
+    }
+
+    public static Object invoke(final Method method, final Object obj, final Object... args) throws IllegalAccessException, InvocationTargetException {
+        return INSTANCE.doInvoke(method, obj, args);
+    }
+
+}
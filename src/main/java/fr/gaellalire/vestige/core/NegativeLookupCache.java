@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Names proven absent at a given generation of the class loader graph. Reads are lock free, the cache is emptied when it is full or when the generation changes.
+ * @author Gael Lalire
+ */
+final class NegativeLookupCache {
+
+    private ConcurrentHashMap<String, Boolean> absentNames = new ConcurrentHashMap<String, Boolean>();
+
+    private int maxSize;
+
+    private AtomicInteger currentGeneration;
+
+    private volatile int generation;
+
+    private int size;
+
+    NegativeLookupCache(final int maxSize, final AtomicInteger currentGeneration) {
+        this.maxSize = maxSize;
+        this.currentGeneration = currentGeneration;
+        this.generation = currentGeneration.get();
+    }
+
+    public boolean contains(final String name, final int lookupGeneration) {
+        return generation == lookupGeneration && absentNames.containsKey(name);
+    }
+
+    /**
+     * @param lookupGeneration the generation read before the lookup started
+     */
+    public synchronized void add(final String name, final int lookupGeneration) {
+        if (currentGeneration.get() != lookupGeneration) {
+            // the graph changed during the lookup
+            return;
+        }
+        int delta = lookupGeneration - generation;
+        if (delta < 0) {
+            return;
+        }
+        if (delta > 0 || size >= maxSize) {
+            absentNames.clear();
+            size = 0;
+            generation = lookupGeneration;
+        }
+        if (absentNames.put(name, Boolean.TRUE) == null) {
+            size++;
+        }
+    }
+
+    public synchronized void remove(final String name) {
+        if (absentNames.remove(name) != null) {
+            size--;
+        }
+    }
+
+    public synchronized void clear() {
+        absentNames.clear();
+        size = 0;
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import fr.gaellalire.vestige.core.resource.IndexableVestigeResourceLocator;
+import fr.gaellalire.vestige.core.resource.VestigeResourceLocator;
+
+/**
+ * Associate a resource directory (a package in resource form) with the ordered indexes of the locators which may contain it. Locators which cannot list their content
+ * are candidates for every directory.
+ * @author Gael Lalire
+ */
+final class ResourceLocatorIndex {
+
+    private Map<String, int[]> locatorIndexesByDirectory;
+
+    private int[] unindexedLocatorIndexes;
+
+    private ResourceLocatorIndex(final Map<String, int[]> locatorIndexesByDirectory, final int[] unindexedLocatorIndexes) {
+        this.locatorIndexesByDirectory = locatorIndexesByDirectory;
+        this.unindexedLocatorIndexes = unindexedLocatorIndexes;
+    }
+
+    public static String getResourceDirectory(final String resourceName) {
+        int lastIndexOf = resourceName.lastIndexOf('/');
+        if (lastIndexOf == -1) {
+            return "";
+        }
+        return resourceName.substring(0, lastIndexOf);
+    }
+
+    /**
+     * @return locator indexes in ascending order, so first match semantic is kept
+     */
+    public int[] getLocatorIndexes(final String resourceName) {
+        int[] locatorIndexes = locatorIndexesByDirectory.get(getResourceDirectory(resourceName));
+        if (locatorIndexes == null) {
+            return unindexedLocatorIndexes;
+        }
+        return locatorIndexes;
+    }
+
+    /**
+     * @return true if a locator cannot list its content, its content may then change and a miss is not definitive
+     */
+    public boolean hasUnindexedLocators() {
+        return unindexedLocatorIndexes.length != 0;
+    }
+
+    public static ResourceLocatorIndex build(final VestigeResourceLocator[] locators) {
+        List<Integer> unindexedList = new ArrayList<Integer>();
+        Map<String, List<Integer>> listByDirectory = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < locators.length; i++) {
+            VestigeResourceLocator locator = locators[i];
+            Set<String> directories = null;
+            if (locator instanceof IndexableVestigeResourceLocator) {
+                directories = ((IndexableVestigeResourceLocator) locator).getResourceDirectories();
+            }
+            if (directories == null) {
+                unindexedList.add(i);
+                // every known directory may be in this locator
+                for (List<Integer> list : listByDirectory.values()) {
+                    list.add(i);
+                }
+                continue;
+            }
+            for (String directory : directories) {
+                // a resource name may also designate a directory entry, so parents are candidates too
+                String current = directory;
+                while (true) {
+                    List<Integer> list = listByDirectory.get(current);
+                    if (list == null) {
+                        list = new ArrayList<Integer>(unindexedList);
+                        listByDirectory.put(current, list);
+                    }
+                    int size = list.size();
+                    if (size != 0 && list.get(size - 1).intValue() == i) {
+                        // this directory and its parents are already registered
+                        break;
+                    }
+                    list.add(i);
+                    if (current.length() == 0) {
+                        break;
+                    }
+                    current = getResourceDirectory(current);
+                }
+            }
+        }
+        Map<String, int[]> locatorIndexesByDirectory = new HashMap<String, int[]>(listByDirectory.size() * 4 / 3 + 1);
+        for (Entry<String, List<Integer>> entry : listByDirectory.entrySet()) {
+            locatorIndexesByDirectory.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        return new ResourceLocatorIndex(locatorIndexesByDirectory, toArray(unindexedList));
+    }
+
+    private static int[] toArray(final List<Integer> list) {
+        int[] array = new int[list.size()];
+        int i = 0;
+        for (Integer integer : list) {
+            array[i++] = integer.intValue();
+        }
+        return array;
+    }
+
+}
@@ -201,34 +201,23 @@ public final class Vestige {
     }
 
     public static Object runMain(final ClassLoader classLoader, final Class<?> mainClass, final VestigeCoreContext vestigeCoreContext, final String[] dargs) throws Exception {
-        if (classLoader == null) {
-            try {
-                Method method = mainClass.getMethod("vestigeCoreMain", VestigeCoreContext.class, String[].class);
-                return method.invoke(null, new Object[] {vestigeCoreContext, dargs});
-            } catch (NoSuchMethodException e) {
-                Method method = mainClass.getMethod("main", String[].class);
-                return method.invoke(null, new Object[] {dargs});
-            }
+        Method method = MethodInvoker.getMainMethod(mainClass);
+        Object[] args;
+        if ("main".equals(method.getName())) {
+            args = new Object[] {dargs};
         } else {
-            Thread currentThread = Thread.currentThread();
-            ClassLoader contextClassLoader = currentThread.getContextClassLoader();
-            try {
-                Method method = mainClass.getMethod("vestigeCoreMain", VestigeCoreContext.class, String[].class);
-                currentThread.setContextClassLoader(classLoader);
-                try {
-                    return method.invoke(null, new Object[] {vestigeCoreContext, dargs});
-                } finally {
-                    currentThread.setContextClassLoader(contextClassLoader);
-                }
-            } catch (NoSuchMethodException e) {
-                Method method = mainClass.getMethod("main", String[].class);
-                currentThread.setContextClassLoader(classLoader);
-                try {
-                    return method.invoke(null, new Object[] {dargs});
-                } finally {
-                    currentThread.setContextClassLoader(contextClassLoader);
-                }
-            }
+            args = new Object[] {vestigeCoreContext, dargs};
+        }
+        if (classLoader == null) {
+            return MethodInvoker.invoke(method, null, args);
+        }
+        Thread currentThread = Thread.currentThread();
+        ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(classLoader);
+        try {
+            return MethodInvoker.invoke(method, null, args);
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
         }
     }
 
@@ -16,13 +16,12 @@
 
 package fr.gaellalire.vestige.core;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.CodeSigner;
 import java.security.CodeSource;
 import java.security.SecureClassLoader;
@@ -30,6 +29,7 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fr.gaellalire.vestige.core.parser.StringParser;
 import fr.gaellalire.vestige.core.resource.PackageMetadata;
@@ -49,23 +49,26 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
 
     static {
         boolean getClassLoadingLockExists = false;
-        Class<?> classLoaderClass = ClassLoader.class.getClass();
+        Class<?> classLoaderClass = ClassLoader.class;
         try {
             classLoaderClass.getDeclaredMethod("getClassLoadingLock", String.class);
             getClassLoadingLockExists = true;
         } catch (Exception e) {
             // ignore
         }
+        boolean parallelCapable = false;
         if (getClassLoadingLockExists) {
-            Method registerAsParallelCapableMethod = null;
+            // registerAsParallelCapable is caller sensitive : the caller must be the class to register (VestigeClassLoader)
             try {
-                registerAsParallelCapableMethod = classLoaderClass.getDeclaredMethod("registerAsParallelCapable");
-                registerAsParallelCapableMethod.invoke(null);
+                Method registerAsParallelCapableMethod = classLoaderClass.getDeclaredMethod("registerAsParallelCapable");
+                registerAsParallelCapableMethod.setAccessible(true);
+                parallelCapable = Boolean.TRUE.equals(registerAsParallelCapableMethod.invoke(null));
             } catch (Exception e) {
                 // ignore
             }
         }
-        GET_CLASS_LOADING_LOCK_METHOD_EXISTS = getClassLoadingLockExists;
+        // without registration super.getClassLoadingLock returns this, so we keep the old behavior
+        GET_CLASS_LOADING_LOCK_METHOD_EXISTS = parallelCapable;
         Method getDefinedPackageMethod = null;
         try {
             getDefinedPackageMethod = classLoaderClass.getDeclaredMethod("getDefinedPackage", String.class);
@@ -75,12 +78,27 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
         GET_DEFINED_PACKAGE_METHOD = getDefinedPackageMethod;
     }
 
+    public static final int NEGATIVE_LOOKUP_CACHE_SIZE = 1024;
+
+    /**
+     * Incremented each time a class loader is created, a created class loader may be added to the configuration of an existing one.
+     */
+    private static final AtomicInteger LOADER_GRAPH_GENERATION = new AtomicInteger();
+
     public static final Enumeration<URL> EMPTY_URL_ENUMERATION = Collections.enumeration(Collections.<URL> emptyList());
 
     private VestigeClassLoaderConfiguration[][] vestigeClassLoaderConfigurationsList;
 
     private VestigeResourceLocator[] jarFiles;
 
+    private volatile ResourceLocatorIndex resourceLocatorIndex;
+
+    private NegativeLookupCache classNegativeLookupCache = new NegativeLookupCache(NEGATIVE_LOOKUP_CACHE_SIZE, LOADER_GRAPH_GENERATION);
+
+    private NegativeLookupCache localClassNegativeLookupCache = new NegativeLookupCache(NEGATIVE_LOOKUP_CACHE_SIZE, LOADER_GRAPH_GENERATION);
+
+    private NegativeLookupCache resourceNegativeLookupCache = new NegativeLookupCache(NEGATIVE_LOOKUP_CACHE_SIZE, LOADER_GRAPH_GENERATION);
+
     // encapsulation rules
     private StringParser classStringParser;
 
@@ -95,7 +113,7 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
 
     private ModuleEncapsulationEnforcer moduleEncapsulationEnforcer;
 
-    private int urlIndex = -1;
+    private volatile int urlIndex = -1;
 
     protected int getUrlIndex() {
         return urlIndex;
@@ -114,6 +132,15 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
         this.resourceStringParser = resourceStringParser;
         this.moduleEncapsulationEnforcer = moduleEncapsulationEnforcer;
         this.jarFiles = jarFiles;
+        LOADER_GRAPH_GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Forget every class and resource known to be absent. Must be called after a {@link VestigeClassLoaderConfiguration} array given to an existing class loader is
+     * modified.
+     */
+    public static void invalidateNegativeLookupCaches() {
+        LOADER_GRAPH_GENERATION.incrementAndGet();
     }
 
     public E getData(final Object dataProtector) {
@@ -137,12 +164,25 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
 
     public void close(final Object dataProtector) throws IOException {
         if (this.dataProtector == dataProtector) {
+            classNegativeLookupCache.clear();
+            localClassNegativeLookupCache.clear();
+            resourceNegativeLookupCache.clear();
             for (VestigeResourceLocator vestigeResourceLocator : jarFiles) {
                 vestigeResourceLocator.close();
             }
         }
     }
 
+    private ResourceLocatorIndex getResourceLocatorIndex() {
+        ResourceLocatorIndex resourceLocatorIndex = this.resourceLocatorIndex;
+        if (resourceLocatorIndex == null) {
+            // concurrent builds give the same result, the last one wins
+            resourceLocatorIndex = ResourceLocatorIndex.build(jarFiles);
+            this.resourceLocatorIndex = resourceLocatorIndex;
+        }
+        return resourceLocatorIndex;
+    }
+
     protected Object getClassLoadingLock(final String className) {
         if (GET_CLASS_LOADING_LOCK_METHOD_EXISTS) {
             return super.getClassLoadingLock(className);
@@ -151,87 +191,171 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
         }
     }
 
-    protected Class<?> superLoadClass(final String name, final boolean parentSearched) throws ClassNotFoundException {
-        if (parentSearched) {
-            try {
-                return parent.loadClass(name);
-            } catch (ClassNotFoundException e) {
-                // ignore
-            }
+    /**
+     * @return false if a locator cannot list its content, which may then change, so a miss must not be cached
+     */
+    private boolean isLocalMissCacheable() {
+        return !getResourceLocatorIndex().hasUnindexedLocators();
+    }
+
+    /**
+     * Load from the parent without creating a {@link ClassNotFoundException} when the parent is also a {@link VestigeClassLoader}.
+     * @return null if the parent cannot load the class
+     */
+    private Class<?> parentLoadClass(final String name) {
+        if (parent instanceof VestigeClassLoader) {
+            return ((VestigeClassLoader<?>) parent).loadClassOrNull(name);
+        }
+        try {
+            return parent.loadClass(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the miss of the parent is definitive, which is the case when the parent cached it or is not a {@link VestigeClassLoader}
+     */
+    private boolean isParentClassMissCached(final String name, final int generation) {
+        if (!(parent instanceof VestigeClassLoader)) {
+            return true;
+        }
+        VestigeClassLoader<?> vestigeParent = (VestigeClassLoader<?>) parent;
+        return vestigeParent.classStringParser.match(name) < 0 || vestigeParent.classNegativeLookupCache.contains(name, generation);
+    }
+
+    /**
+     * @return null if no locator of this class loader contains the class
+     * @throws ClassNotFoundException if a locator contains the class but it cannot be read
+     */
+    private Class<?> findLocalClass(final String name) throws ClassNotFoundException {
+        // a class defined by another route is found even if it was absent before
+        Class<?> loadedClass = findLoadedClass(name);
+        if (loadedClass != null) {
+            return loadedClass;
+        }
+        int generation = LOADER_GRAPH_GENERATION.get();
+        if (localClassNegativeLookupCache.contains(name, generation)) {
+            return null;
         }
         synchronized (getClassLoadingLock(name)) {
-            Class<?> loadedClass = findLoadedClass(name);
+            loadedClass = findLoadedClass(name);
             if (loadedClass != null) {
                 return loadedClass;
             }
-            try {
-                return findClass(name);
-            } catch (ClassNotFoundException e) {
-                // ignore
+            loadedClass = findClassOrNull(name);
+            if (loadedClass == null && isLocalMissCacheable()) {
+                localClassNegativeLookupCache.add(name, generation);
             }
+            return loadedClass;
+        }
+    }
+
+    protected Class<?> superLoadClass(final String name, final boolean parentSearched) throws ClassNotFoundException {
+        if (parentSearched) {
+            Class<?> loadedClass = parentLoadClass(name);
+            if (loadedClass != null) {
+                return loadedClass;
+            }
+        }
+        return findLocalClass(name);
+    }
+
+    private ClassNotFoundException createClassNotFoundException(final String name, final Throwable cause) {
+        if (data != null) {
+            return new ClassNotFoundException(name + " in " + data.toString(), cause);
+        } else {
+            return new ClassNotFoundException(name, cause);
         }
-        return null;
     }
 
     @Override
     public Class<?> loadClass(final String name) throws ClassNotFoundException {
-        int match = classStringParser.match(name);
-        if (match < 0) {
-            if (data != null) {
-                throw new ClassNotFoundException(name + " in " + data.toString());
+        Class<?> loadedClass = loadClassOrNull(name);
+        if (loadedClass == null) {
+            throw createClassNotFoundException(name, null);
+        }
+        return loadedClass;
+    }
+
+    /**
+     * @return true if a vestige class loader searched for the class has defined it since it was found absent
+     */
+    private boolean isLoadedByDelegate(final String name, final VestigeClassLoaderConfiguration[] classLoaderConfigurations) {
+        for (VestigeClassLoaderConfiguration classLoaderConfiguration : classLoaderConfigurations) {
+            VestigeClassLoader<?> vestigeClassLoader;
+            if (classLoaderConfiguration == null) {
+                if (!(parent instanceof VestigeClassLoader)) {
+                    continue;
+                }
+                vestigeClassLoader = (VestigeClassLoader<?>) parent;
             } else {
-                throw new ClassNotFoundException(name);
+                vestigeClassLoader = classLoaderConfiguration.getVestigeClassLoader();
+                if (vestigeClassLoader == null) {
+                    continue;
+                }
             }
+            if (vestigeClassLoader.findLoadedClass(name) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #loadClass(String)} but a missing class is returned as null, so delegation between vestige class loaders does not create exceptions. A miss is
+     * cached only if each vestige class loader searched has cached its own miss.
+     */
+    protected Class<?> loadClassOrNull(final String name) {
+        int match = classStringParser.match(name);
+        if (match < 0) {
+            return null;
+        }
+        Class<?> loadedClass = findLoadedClass(name);
+        if (loadedClass != null) {
+            return loadedClass;
         }
         VestigeClassLoaderConfiguration[] classLoaderConfigurations = vestigeClassLoaderConfigurationsList[match];
+        int generation = LOADER_GRAPH_GENERATION.get();
+        if (classNegativeLookupCache.contains(name, generation)) {
+            if (classLoaderConfigurations == null || !isLoadedByDelegate(name, classLoaderConfigurations)) {
+                return null;
+            }
+            classNegativeLookupCache.remove(name);
+        }
+        boolean cacheable = true;
         if (classLoaderConfigurations != null) {
             for (VestigeClassLoaderConfiguration classLoaderConfiguration : classLoaderConfigurations) {
                 if (classLoaderConfiguration == null) {
-                    try {
-                        return parent.loadClass(name);
-                    } catch (ClassNotFoundException e) {
-                        // ignore
+                    loadedClass = parentLoadClass(name);
+                    if (loadedClass != null) {
+                        return loadedClass;
                     }
+                    cacheable = cacheable && isParentClassMissCached(name, generation);
                 } else {
-                    boolean parentSearched = classLoaderConfiguration.isParentSearched();
                     VestigeClassLoader<?> vestigeClassLoader = classLoaderConfiguration.getVestigeClassLoader();
                     if (vestigeClassLoader == null) {
-                        if (parentSearched) {
-                            try {
-                                return parent.loadClass(name);
-                            } catch (ClassNotFoundException e) {
-                                // ignore
-                            }
-                        }
-                        synchronized (getClassLoadingLock(name)) {
-                            Class<?> loadedClass = findLoadedClass(name);
-                            if (loadedClass != null) {
-                                return loadedClass;
-                            }
-                            try {
-                                return findClass(name);
-                            } catch (ClassNotFoundException e) {
-                                // ignore
-                            }
-                        }
-                    } else {
-                        try {
-                            Class<?> superLoadClass = vestigeClassLoader.superLoadClass(name, parentSearched);
-                            if (superLoadClass != null) {
-                                return superLoadClass;
-                            }
-                        } catch (ClassNotFoundException e) {
-                            // ignore
+                        vestigeClassLoader = this;
+                    }
+                    boolean parentSearched = classLoaderConfiguration.isParentSearched();
+                    try {
+                        loadedClass = vestigeClassLoader.superLoadClass(name, parentSearched);
+                        if (loadedClass != null) {
+                            return loadedClass;
                         }
+                        cacheable = cacheable && (!parentSearched || vestigeClassLoader.isParentClassMissCached(name, generation))
+                                && vestigeClassLoader.localClassNegativeLookupCache.contains(name, generation);
+                    } catch (ClassNotFoundException e) {
+                        // read failure, it may be present next time
+                        cacheable = false;
                     }
                 }
             }
         }
-        if (data != null) {
-            throw new ClassNotFoundException(name + " in " + data.toString());
-        } else {
-            throw new ClassNotFoundException(name);
+        if (cacheable) {
+            classNegativeLookupCache.add(name, generation);
         }
+        return null;
     }
 
     public static String getPackageNameFromClassName(final String className) {
@@ -252,34 +376,36 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
 
     @Override
     protected Class<?> findClass(final String className) throws ClassNotFoundException {
+        Class<?> foundClass = findClassOrNull(className);
+        if (foundClass == null) {
+            throw createClassNotFoundException(className.replace('.', '/').concat(".class"), null);
+        }
+        return foundClass;
+    }
+
+    private Class<?> findClassOrNull(final String className) throws ClassNotFoundException {
         String packageName = getPackageNameFromClassName(className);
         String name = className.replace('.', '/').concat(".class");
-        for (VestigeResourceLocator jarFile : jarFiles) {
+        for (int i : getResourceLocatorIndex().getLocatorIndexes(name)) {
+            VestigeResourceLocator jarFile = jarFiles[i];
             VestigeResource entry = jarFile.findResource(name);
             if (entry != null) {
                 try {
                     return defineClass(className, jarFile, entry, moduleEncapsulationEnforcer != null && moduleEncapsulationEnforcer.getModuleName(packageName) != null);
                 } catch (IOException e) {
-                    if (data != null) {
-                        throw new ClassNotFoundException(name + " in " + data.toString(), e);
-                    } else {
-                        throw new ClassNotFoundException(name, e);
-                    }
+                    throw createClassNotFoundException(name, e);
                 }
             }
         }
-        if (data != null) {
-            throw new ClassNotFoundException(name + " in " + data.toString());
-        } else {
-            throw new ClassNotFoundException(name);
-        }
+        return null;
     }
 
     protected Class<?> findClass(final String moduleName, final String className) {
         if (moduleName == null || moduleName.equals(moduleEncapsulationEnforcer.getModuleName(getPackageNameFromClassName(className)))) {
             // moduleName == null => unnamed module => no encapsulation
             String name = className.replace('.', '/').concat(".class");
-            for (VestigeResourceLocator jarFile : jarFiles) {
+            for (int i : getResourceLocatorIndex().getLocatorIndexes(name)) {
+                VestigeResourceLocator jarFile = jarFiles[i];
                 VestigeResource entry = jarFile.findResource(name);
                 if (entry != null) {
                     try {
@@ -295,54 +421,13 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
     }
 
     private Class<?> defineClass(final String className, final VestigeResourceLocator man, final VestigeResource entry, final boolean namedModule) throws IOException {
-        int size = (int) entry.getSize();
+        localClassNegativeLookupCache.remove(className);
+        classNegativeLookupCache.remove(className);
+        // stored entries of a mapped archive are defined without copy
+        ByteBuffer byteBuffer = entry.getByteBuffer();
         byte[] buf = null;
-        int off = 0;
-        int len = 0;
-        InputStream inputStream = entry.getInputStream();
-        int read = -1;
-        if (size != -1) {
-            len = size;
-            buf = new byte[size];
-            read = inputStream.read(buf, off, len);
-            while (read != -1) {
-                off += read;
-                len -= read;
-                if (len == 0) {
-                    // buffer is full
-                    break;
-                }
-                read = inputStream.read(buf, off, len);
-            }
-            if (read != -1) {
-                read = inputStream.read();
-            }
-            if (read == -1) {
-                // no need to read more
-                off = 0;
-                len = size - len;
-            } else {
-                // buffer is full
-                off = 0;
-                len = size;
-                size = -1;
-            }
-        }
-        if (size == -1) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream(len + 1024);
-            if (read != -1) {
-                baos.write(buf, off, len);
-                baos.write(read);
-            }
-            buf = new byte[1024];
-            read = inputStream.read(buf, 0, len);
-            while (read != -1) {
-                baos.write(buf, 0, read);
-                read = inputStream.read(buf, 0, len);
-            }
-            buf = baos.toByteArray();
-            off = 0;
-            len = buf.length;
+        if (byteBuffer == null) {
+            buf = entry.readFully();
         }
         URL csURL = entry.getCodeSourceURL();
         if (!namedModule) {
@@ -356,7 +441,10 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
         CodeSigner[] signers = entry.getCodeSigners();
         CodeSource cs = new CodeSource(csURL, signers);
 
-        return defineClass(className, buf, off, len, cs);
+        if (byteBuffer != null) {
+            return defineClass(className, byteBuffer, cs);
+        }
+        return defineClass(className, buf, 0, buf.length, cs);
     }
 
     /**
@@ -459,9 +547,8 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
     }
 
     private URL innerFindResource(final String name) {
-        int i = 0;
-        for (VestigeResourceLocator jarFile : jarFiles) {
-            VestigeResource entry = jarFile.findResource(name);
+        for (int i : getResourceLocatorIndex().getLocatorIndexes(name)) {
+            VestigeResource entry = jarFiles[i].findResource(name);
             if (entry != null) {
                 try {
                     return map(i, entry);
@@ -469,15 +556,13 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
                     return null;
                 }
             }
-            i++;
         }
         return null;
     }
 
     private URL innerFindResources(final Set<URL> urls, final String name) throws IOException {
-        int i = 0;
-        for (VestigeResourceLocator jarFile : jarFiles) {
-            VestigeResource entry = jarFile.findResource(name);
+        for (int i : getResourceLocatorIndex().getLocatorIndexes(name)) {
+            VestigeResource entry = jarFiles[i].findResource(name);
             if (entry != null) {
                 try {
                     urls.add(map(i, entry));
@@ -485,7 +570,6 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
                     // ignore
                 }
             }
-            i++;
         }
         return null;
     }
@@ -528,12 +612,31 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
         return findResource(name);
     }
 
+    /**
+     * @return true if the miss of the parent is definitive, which is the case when the parent cached it or is not a {@link VestigeClassLoader}
+     */
+    private boolean isParentResourceMissCached(final String name, final int generation) {
+        if (!(parent instanceof VestigeClassLoader)) {
+            return true;
+        }
+        VestigeClassLoader<?> vestigeParent = (VestigeClassLoader<?>) parent;
+        return vestigeParent.resourceStringParser.match(name) < 0 || vestigeParent.resourceNegativeLookupCache.contains(name, generation);
+    }
+
+    /**
+     * A miss is cached only if each vestige class loader searched has cached its own miss or has only locators listing their content.
+     */
     @Override
     public URL getResource(final String name) {
         int match = resourceStringParser.match(name);
         if (match < 0) {
             return null;
         }
+        int generation = LOADER_GRAPH_GENERATION.get();
+        if (resourceNegativeLookupCache.contains(name, generation)) {
+            return null;
+        }
+        boolean cacheable = true;
         VestigeClassLoaderConfiguration[] classLoaderConfigurations = vestigeClassLoaderConfigurationsList[match];
         if (classLoaderConfigurations != null) {
             for (VestigeClassLoaderConfiguration classLoaderConfiguration : classLoaderConfigurations) {
@@ -542,6 +645,7 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
                     if (resource != null) {
                         return resource;
                     }
+                    cacheable = cacheable && isParentResourceMissCached(name, generation);
                 } else {
                     boolean parentSearched = classLoaderConfiguration.isParentSearched();
                     VestigeClassLoader<?> vestigeClassLoader = classLoaderConfiguration.getVestigeClassLoader();
@@ -557,15 +661,21 @@ public final class VestigeClassLoader<E> extends SecureClassLoader implements Ve
                         if (resource != null) {
                             return resource;
                         }
+                        vestigeClassLoader = this;
                     } else {
                         URL resource = vestigeClassLoader.superGetResource(name, parentSearched);
                         if (resource != null) {
                             return resource;
                         }
                     }
+                    cacheable = cacheable && (!parentSearched || vestigeClassLoader.isParentResourceMissCached(name, generation))
+                            && vestigeClassLoader.isLocalMissCacheable();
                 }
             }
         }
+        if (cacheable) {
+            resourceNegativeLookupCache.add(name, generation);
+        }
         return null;
     }
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.gaellalire.vestige.core.executor.callable.CreateThread;
+
+/**
+ * Creates daemon threads with the worker creator thread of a shared {@link VestigeExecutor}, so a thread of a pool shared by every application does not inherit the
+ * access control context, the inheritable thread locals or the context class loader of the thread which made the pool grow.
+ * @author Gael Lalire
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+
+    private static volatile VestigeExecutor vestigeExecutor;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    private final String namePrefix;
+
+    /**
+     * @param namePrefix prefix of the thread names, followed by the thread number
+     */
+    public DaemonThreadFactory(final String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    private static VestigeExecutor getVestigeExecutor() {
+        VestigeExecutor result = vestigeExecutor;
+        if (result == null) {
+            synchronized (DaemonThreadFactory.class) {
+                result = vestigeExecutor;
+                if (result == null) {
+                    // the creator thread only gets the access control context of vestige core
+                    result = AccessController.doPrivileged(new PrivilegedAction<VestigeExecutor>() {
+
+                        @Override
+                        public VestigeExecutor run() {
+                            return new VestigeExecutor();
+                        }
+                    });
+                    vestigeExecutor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Waits for the thread even if the current thread is interrupted, the interruption is restored. A null thread would leave the task which made the pool grow queued with
+     * no thread to run it.
+     */
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        Thread thread = getVestigeExecutor().createThreadUninterruptibly(new CreateThread(null, runnable, namePrefix + threadNumber.incrementAndGet(), 0));
+        thread.setDaemon(true);
+        return thread;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms of a worker. The queue depth counts submitted tasks which are not started yet.
+ * @author Gael Lalire
+ */
+public class HistogramVestigeWorkerMetrics implements VestigeWorkerMetrics, HistogramVestigeWorkerMetricsMBean {
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final String workerName;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    private final AtomicLong startedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong interruptedCount = new AtomicLong();
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    private final LatencyHistogram serviceTimes = new LatencyHistogram();
+
+    private volatile boolean terminated;
+
+    public HistogramVestigeWorkerMetrics(final String workerName) {
+        this.workerName = workerName;
+    }
+
+    public void taskSubmitted() {
+        submittedCount.incrementAndGet();
+    }
+
+    public void taskRejected() {
+        rejectedCount.incrementAndGet();
+    }
+
+    public void taskStarted(final long waitNanos) {
+        startedCount.incrementAndGet();
+        waitTimes.record(waitNanos);
+    }
+
+    public void taskCompleted(final long serviceNanos) {
+        serviceTimes.record(serviceNanos);
+    }
+
+    public void workerInterrupted() {
+        interruptedCount.incrementAndGet();
+    }
+
+    public void workerTerminated() {
+        terminated = true;
+    }
+
+    /**
+     * @return the enqueue to start durations in nanoseconds
+     */
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * @return the start to finish durations in nanoseconds
+     */
+    public LatencyHistogram getServiceTimes() {
+        return serviceTimes;
+    }
+
+    public String getWorkerName() {
+        return workerName;
+    }
+
+    public long getQueueDepth() {
+        return Math.max(0, submittedCount.get() - startedCount.get());
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return serviceTimes.getCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getInterruptedCount() {
+        return interruptedCount.get();
+    }
+
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    public double getMeanWaitTime() {
+        return waitTimes.getMean() / NANOS_PER_MICRO;
+    }
+
+    public long getMedianWaitTime() {
+        return waitTimes.getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    public long get99thPercentileWaitTime() {
+        return waitTimes.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    public long getMaxWaitTime() {
+        return waitTimes.getMax() / NANOS_PER_MICRO;
+    }
+
+    public double getMeanServiceTime() {
+        return serviceTimes.getMean() / NANOS_PER_MICRO;
+    }
+
+    public long getMedianServiceTime() {
+        return serviceTimes.getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    public long get99thPercentileServiceTime() {
+        return serviceTimes.getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    public long getMaxServiceTime() {
+        return serviceTimes.getMax() / NANOS_PER_MICRO;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Creates {@link HistogramVestigeWorkerMetrics}, optionally registered in the platform MBean server until their worker terminates.
+ * @author Gael Lalire
+ */
+public class HistogramVestigeWorkerMetricsFactory implements VestigeWorkerMetricsFactory {
+
+    private final ConcurrentLinkedQueue<HistogramVestigeWorkerMetrics> liveWorkerMetrics = new ConcurrentLinkedQueue<HistogramVestigeWorkerMetrics>();
+
+    private final boolean registerMBeans;
+
+    /**
+     * @param registerMBeans true to register the metrics of each worker under the fr.gaellalire.vestige domain, the java.management module is then
+     *            required
+     */
+    public HistogramVestigeWorkerMetricsFactory(final boolean registerMBeans) {
+        this.registerMBeans = registerMBeans;
+    }
+
+    public VestigeWorkerMetrics createWorkerMetrics(final String workerName) {
+        final WorkerMetricsMBeanRegistration registration;
+        if (registerMBeans) {
+            registration = new WorkerMetricsMBeanRegistration();
+        } else {
+            registration = null;
+        }
+        HistogramVestigeWorkerMetrics workerMetrics = new HistogramVestigeWorkerMetrics(workerName) {
+
+            @Override
+            public void workerTerminated() {
+                super.workerTerminated();
+                liveWorkerMetrics.remove(this);
+                if (registration != null) {
+                    registration.unregister();
+                }
+            }
+
+        };
+        liveWorkerMetrics.add(workerMetrics);
+        if (registration != null) {
+            registration.register(workerMetrics);
+        }
+        return workerMetrics;
+    }
+
+    /**
+     * @return the metrics of the workers which are not terminated
+     */
+    public List<HistogramVestigeWorkerMetrics> getLiveWorkerMetrics() {
+        return new ArrayList<HistogramVestigeWorkerMetrics>(liveWorkerMetrics);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+/**
+ * JMX view of {@link HistogramVestigeWorkerMetrics}, times are in microseconds.
+ * @author Gael Lalire
+ */
+public interface HistogramVestigeWorkerMetricsMBean {
+
+    String getWorkerName();
+
+    long getQueueDepth();
+
+    long getSubmittedCount();
+
+    long getCompletedCount();
+
+    long getRejectedCount();
+
+    long getInterruptedCount();
+
+    boolean isTerminated();
+
+    double getMeanWaitTime();
+
+    long getMedianWaitTime();
+
+    long get99thPercentileWaitTime();
+
+    long getMaxWaitTime();
+
+    double getMeanServiceTime();
+
+    long getMedianServiceTime();
+
+    long get99thPercentileServiceTime();
+
+    long getMaxServiceTime();
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of durations with a relative precision of 1/16. Values below 16 have their own bucket, above each power of two is split in 16 buckets, like an
+ * HdrHistogram with one significant digit.
+ * @author Gael Lalire
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong totalValue = new AtomicLong();
+
+    private final AtomicLong maxValue = new AtomicLong();
+
+    static int getBucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the highest value of the bucket
+     */
+    static long getHighestValue(final int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + bucketIndex % SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @param value a duration, negative values are counted as 0
+     */
+    public void record(final long value) {
+        long positiveValue = Math.max(value, 0);
+        counts.incrementAndGet(getBucketIndex(positiveValue));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(positiveValue);
+        long max = maxValue.get();
+        while (positiveValue > max && !maxValue.compareAndSet(max, positiveValue)) {
+            max = maxValue.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        return (double) totalValue.get() / count;
+    }
+
+    /**
+     * Concurrent records may be partially seen.
+     * @param percentile between 0 and 100
+     * @return the highest value of the bucket reaching the percentile, or 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulated += counts.get(i);
+            if (cumulated >= target) {
+                return Math.min(getHighestValue(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+}
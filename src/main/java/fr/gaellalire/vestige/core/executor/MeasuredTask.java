@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+/**
+ * Runs a task and reports its wait and service times.
+ * @author Gael Lalire
+ */
+final class MeasuredTask implements Runnable {
+
+    private final Runnable task;
+
+    private final VestigeWorkerMetrics metrics;
+
+    private final long submitTime;
+
+    MeasuredTask(final Runnable task, final VestigeWorkerMetrics metrics) {
+        this.task = task;
+        this.metrics = metrics;
+        this.submitTime = System.nanoTime();
+    }
+
+    public void run() {
+        long startTime = System.nanoTime();
+        metrics.taskStarted(startTime - submitTime);
+        try {
+            task.run();
+        } finally {
+            metrics.taskCompleted(System.nanoTime() - startTime);
+        }
+    }
+
+}
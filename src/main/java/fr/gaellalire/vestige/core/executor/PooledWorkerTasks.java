@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tasks of a pooled worker. They are run one at a time and in order by whichever carrier thread drains them, a drain is scheduled on the pool only when tasks are pending
+ * and no drain is scheduled. A drain runs a bounded number of tasks before giving its carrier back, so a busy worker does not starve the others.
+ * @author Gael Lalire
+ */
+final class PooledWorkerTasks implements Runnable {
+
+    private static final int MAX_TASKS_PER_DRAIN = 64;
+
+    private final VestigeWorkerTaskQueue tasks = new VestigeWorkerTaskQueue();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicBoolean terminating = new AtomicBoolean();
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private final Executor carriers;
+
+    private final int maxActions;
+
+    private final VestigeWorkerMetrics metrics;
+
+    /**
+     * Only accessed by the draining carrier.
+     */
+    private int remain;
+
+    private volatile boolean interrupted;
+
+    /**
+     * Carrier running a drain, guarded by this.
+     */
+    private Thread carrier;
+
+    /**
+     * @param metrics metrics of the worker, or null
+     */
+    PooledWorkerTasks(final Executor carriers, final int maxActions, final VestigeWorkerMetrics metrics) {
+        this.carriers = carriers;
+        this.metrics = metrics;
+        this.maxActions = maxActions;
+        this.remain = maxActions;
+    }
+
+    public void offer(final Runnable task) {
+        tasks.offer(task);
+        schedule();
+    }
+
+    public void offerAll(final Runnable[] runnables) {
+        tasks.offerAll(runnables);
+        schedule();
+    }
+
+    private void schedule() {
+        if (terminated.getCount() != 0 && scheduled.compareAndSet(false, true)) {
+            carriers.execute(this);
+        }
+    }
+
+    public void run() {
+        if (terminated.getCount() == 0) {
+            return;
+        }
+        Thread currentThread = Thread.currentThread();
+        synchronized (this) {
+            carrier = currentThread;
+            if (interrupted) {
+                currentThread.interrupt();
+            }
+        }
+        try {
+            for (int i = 0; i < MAX_TASKS_PER_DRAIN; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+                if (maxActions != 0 && --remain == 0) {
+                    terminate();
+                    return;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                carrier = null;
+                // the interruption is for this worker only
+                Thread.interrupted();
+            }
+            currentThread.setContextClassLoader(null);
+            reschedule();
+        }
+    }
+
+    /**
+     * Called by the carrier owning scheduled once it stops draining, so no other carrier consumes the tasks while they are checked.
+     */
+    private void reschedule() {
+        while (!isTerminated()) {
+            if (!tasks.isEmpty()) {
+                // other workers get a carrier between the drains of this one
+                carriers.execute(this);
+                return;
+            }
+            if (interrupted) {
+                terminate();
+                return;
+            }
+            Object tailMark = tasks.getTailMark();
+            scheduled.set(false);
+            // a task or interruption submitted before the reset found scheduled set and did not schedule a drain
+            if ((!tasks.hasAppendedSince(tailMark) && !interrupted) || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Interrupts the running task if any, the worker terminates once its pending tasks are done.
+     */
+    public void interrupt() {
+        synchronized (this) {
+            interrupted = true;
+            if (carrier != null) {
+                carrier.interrupt();
+            }
+        }
+        schedule();
+    }
+
+    private void terminate() {
+        if (terminating.compareAndSet(false, true)) {
+            terminated.countDown();
+            if (metrics != null) {
+                metrics.workerTerminated();
+            }
+        }
+    }
+
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    public void join() throws InterruptedException {
+        terminated.await();
+    }
+
+}
@@ -17,10 +17,17 @@
 package fr.gaellalire.vestige.core.executor;
 
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fr.gaellalire.vestige.core.executor.callable.CreateThread;
+import fr.gaellalire.vestige.core.executor.callable.CreateVirtualThread;
 import fr.gaellalire.vestige.core.weak.ThreadReaperHelper;
 
 /**
@@ -32,7 +39,32 @@ public final class VestigeExecutor {
 
     private ThreadReaperHelper threadReaperHelper;
 
+    private final int maxCarrierThreads;
+
+    private final long carrierKeepAliveMillis;
+
+    private volatile ThreadPoolExecutor carriers;
+
+    private volatile VestigeWorkerMetricsFactory workerMetricsFactory;
+
+    private final AtomicInteger pooledWorkerNumber = new AtomicInteger();
+
+    private volatile VestigeWorker threadCreationWorker;
+
     public VestigeExecutor() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors() * 2), TimeUnit.MINUTES.toMillis(1));
+    }
+
+    /**
+     * @param maxCarrierThreads maximum number of threads running the tasks of pooled workers
+     * @param carrierKeepAliveMillis idle time after which a carrier thread ends
+     */
+    public VestigeExecutor(final int maxCarrierThreads, final long carrierKeepAliveMillis) {
+        if (maxCarrierThreads <= 0) {
+            throw new IllegalArgumentException("maxCarrierThreads must be strictly positive integer");
+        }
+        this.maxCarrierThreads = maxCarrierThreads;
+        this.carrierKeepAliveMillis = carrierKeepAliveMillis;
         Thread workerCreatorThread = new Thread(new VestigeExecutorWorkerFactory(workerCreationTasks), "vestige-worker-creator");
         workerCreatorThread.setDaemon(true);
         workerCreatorThread.start();
@@ -47,8 +79,56 @@ public final class VestigeExecutor {
         if (maxActions < 0) {
             throw new IllegalArgumentException("maxActions must be positive integer");
         }
-        final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+        return createWorker(name, daemon, maxActions, createWorkerMetrics(name));
+    }
+
+    private VestigeWorker createWorker(final String name, final boolean daemon, final int maxActions, final VestigeWorkerMetrics metrics) throws InterruptedException {
+        final VestigeWorkerTaskQueue tasks = new VestigeWorkerTaskQueue();
+        Thread thread = createThread(new CreateThread(null, createWorkerLoop(tasks, maxActions, metrics), name, 0));
+        thread.setDaemon(daemon);
+        thread.start();
+        return new VestigeWorker(thread, tasks, metrics);
+    }
 
+    /**
+     * @param workerMetricsFactory provides the metrics of the workers created afterward, null to not measure them
+     */
+    public void setWorkerMetricsFactory(final VestigeWorkerMetricsFactory workerMetricsFactory) {
+        this.workerMetricsFactory = workerMetricsFactory;
+    }
+
+    private VestigeWorkerMetrics createWorkerMetrics(final String name) {
+        VestigeWorkerMetricsFactory factory = workerMetricsFactory;
+        if (factory == null) {
+            return null;
+        }
+        return factory.createWorkerMetrics(name);
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return CreateVirtualThread.isSupported();
+    }
+
+    /**
+     * Creates a worker whose thread is virtual, it is always daemon and only costs its used stack while waiting for tasks.
+     * @throws UnsupportedOperationException if the jdk does not support virtual threads
+     * @see #isVirtualThreadSupported()
+     */
+    public VestigeWorker createVirtualWorker(final String name, final int maxActions) throws InterruptedException {
+        if (maxActions < 0) {
+            throw new IllegalArgumentException("maxActions must be positive integer");
+        }
+        if (!CreateVirtualThread.isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require jdk 21");
+        }
+        final VestigeWorkerTaskQueue tasks = new VestigeWorkerTaskQueue();
+        VestigeWorkerMetrics metrics = createWorkerMetrics(name);
+        Thread thread = createThread(new CreateVirtualThread(createWorkerLoop(tasks, maxActions, metrics), name));
+        thread.start();
+        return new VestigeWorker(thread, tasks, metrics);
+    }
+
+    private static Runnable createWorkerLoop(final VestigeWorkerTaskQueue tasks, final int maxActions, final VestigeWorkerMetrics metrics) {
         Runnable runnable;
         if (maxActions != 0) {
             runnable = new Runnable() {
@@ -56,15 +136,10 @@ public final class VestigeExecutor {
                     int remain = maxActions;
                     mainloop: while (remain > 0) {
                         Runnable task;
-                        synchronized (tasks) {
-                            while (tasks.isEmpty()) {
-                                try {
-                                    tasks.wait();
-                                } catch (InterruptedException e) {
-                                    break mainloop;
-                                }
-                            }
-                            task = tasks.removeFirst();
+                        try {
+                            task = tasks.take();
+                        } catch (InterruptedException e) {
+                            break mainloop;
                         }
                         task.run();
                         remain--;
@@ -76,15 +151,10 @@ public final class VestigeExecutor {
                 public void run() {
                     mainloop: while (true) {
                         Runnable task;
-                        synchronized (tasks) {
-                            while (tasks.isEmpty()) {
-                                try {
-                                    tasks.wait();
-                                } catch (InterruptedException e) {
-                                    break mainloop;
-                                }
-                            }
-                            task = tasks.removeFirst();
+                        try {
+                            task = tasks.take();
+                        } catch (InterruptedException e) {
+                            break mainloop;
                         }
                         task.run();
                     }
@@ -92,12 +162,32 @@ public final class VestigeExecutor {
                 }
             };
         }
+        if (metrics != null) {
+            final Runnable loop = runnable;
+            runnable = new Runnable() {
+                public void run() {
+                    try {
+                        loop.run();
+                    } finally {
+                        metrics.workerTerminated();
+                    }
+                }
+            };
+        }
+        return runnable;
+    }
+
+    private FutureTask<Thread> submitThreadCreation(final Callable<Thread> threadCreation) {
         FutureTask<Thread> futureTask;
         synchronized (workerCreationTasks) {
-            futureTask = new FutureTask<Thread>(new CreateThread(null, runnable, name, 0));
+            futureTask = new FutureTask<Thread>(threadCreation);
             workerCreationTasks.addLast(futureTask);
             workerCreationTasks.notifyAll();
         }
+        return futureTask;
+    }
+
+    private static Thread getCreatedThread(final FutureTask<Thread> futureTask) throws InterruptedException {
         Thread thread;
         try {
             thread = futureTask.get();
@@ -111,9 +201,95 @@ public final class VestigeExecutor {
             throw new Error("Unknown throwable", cause);
         }
         thread.setContextClassLoader(null);
-        thread.setDaemon(daemon);
-        thread.start();
-        return new VestigeWorker(thread, tasks);
+        return thread;
+    }
+
+    /**
+     * The thread is created by the worker creator thread, so it does not inherit the access control context of the caller.
+     */
+    Thread createThread(final Callable<Thread> threadCreation) throws InterruptedException {
+        return getCreatedThread(submitThreadCreation(threadCreation));
+    }
+
+    /**
+     * Same as {@link #createThread(Callable)} but an interruption does not stop the wait, it is restored once the thread is created. A pool must get its thread, else the
+     * task which made it grow stays queued without thread to run it.
+     */
+    Thread createThreadUninterruptibly(final Callable<Thread> threadCreation) {
+        FutureTask<Thread> futureTask = submitThreadCreation(threadCreation);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return getCreatedThread(futureTask);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private ThreadPoolExecutor getCarriers() {
+        ThreadPoolExecutor result = carriers;
+        if (result == null) {
+            synchronized (this) {
+                result = carriers;
+                if (result == null) {
+                    result = new ThreadPoolExecutor(maxCarrierThreads, maxCarrierThreads, carrierKeepAliveMillis, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                            new ThreadFactory() {
+
+                                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                                public Thread newThread(final Runnable runnable) {
+                                    Thread thread = createThreadUninterruptibly(new CreateThread(null, runnable, "vestige-worker-carrier-" + threadNumber.incrementAndGet(), 0));
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                    // carriers are created on demand and end when idle
+                    result.allowCoreThreadTimeOut(true);
+                    carriers = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Worker creating the threads and timers asked to pooled workers. Carriers keep the thread locals set by the tasks of every pooled worker, a thread created by a carrier
+     * would inherit them.
+     */
+    VestigeWorker getThreadCreationWorker() throws InterruptedException {
+        VestigeWorker result = threadCreationWorker;
+        if (result == null) {
+            synchronized (this) {
+                result = threadCreationWorker;
+                if (result == null) {
+                    result = createWorker("vestige-pooled-worker-thread-creator", true, 0, null);
+                    threadCreationWorker = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a worker without dedicated thread. Its tasks are run in order, one at a time, by daemon carrier threads shared by the pooled workers of this executor. Carriers
+     * are created like dedicated worker threads and their context class loader is reset after the tasks of each worker, so tasks get the same environment. Thread locals are
+     * not reset, so the threads and timers of a pooled worker are created by a dedicated thread instead of a carrier. A task blocking for a long time holds its carrier,
+     * such tasks should be run by a worker from {@link #createWorker(String, boolean, int)}.
+     * @param maxActions number of tasks after which the worker terminates, 0 for no limit
+     */
+    public VestigeWorker createPooledWorker(final int maxActions) {
+        if (maxActions < 0) {
+            throw new IllegalArgumentException("maxActions must be positive integer");
+        }
+        VestigeWorkerMetrics metrics = createWorkerMetrics("vestige-pooled-worker-" + pooledWorkerNumber.incrementAndGet());
+        return new VestigeWorker(new PooledWorkerTasks(getCarriers(), maxActions, metrics), this, metrics);
     }
 
 }
@@ -18,7 +18,10 @@ package fr.gaellalire.vestige.core.executor;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Timer;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -31,6 +34,7 @@ import fr.gaellalire.vestige.core.VestigeClassLoaderConfiguration;
 import fr.gaellalire.vestige.core.executor.callable.ClassForName;
 import fr.gaellalire.vestige.core.executor.callable.CreateThread;
 import fr.gaellalire.vestige.core.executor.callable.CreateTimer;
+import fr.gaellalire.vestige.core.executor.callable.CreateVirtualThread;
 import fr.gaellalire.vestige.core.executor.callable.CreateVestigeClassLoader;
 import fr.gaellalire.vestige.core.executor.callable.InvokeMethod;
 import fr.gaellalire.vestige.core.parser.StringParser;
@@ -43,22 +47,120 @@ public class VestigeWorker {
 
     private Thread thread;
 
-    private LinkedList<Runnable> tasks;
+    private VestigeWorkerTaskQueue tasks;
 
+    private LinkedList<Runnable> legacyTasks;
+
+    private PooledWorkerTasks pooledWorkerTasks;
+
+    private VestigeExecutor vestigeExecutor;
+
+    private VestigeWorkerMetrics metrics;
+
+    /**
+     * The thread must take the tasks from the list while holding its monitor, it is notified after each submission.
+     * @deprecated use {@link #VestigeWorker(Thread, VestigeWorkerTaskQueue)}
+     */
+    @Deprecated
     public VestigeWorker(final Thread thread, final LinkedList<Runnable> tasks) {
+        this.thread = thread;
+        this.legacyTasks = tasks;
+    }
+
+    public VestigeWorker(final Thread thread, final VestigeWorkerTaskQueue tasks) {
+        this(thread, tasks, null);
+    }
+
+    /**
+     * @param metrics metrics of the worker, or null
+     */
+    public VestigeWorker(final Thread thread, final VestigeWorkerTaskQueue tasks, final VestigeWorkerMetrics metrics) {
         this.thread = thread;
         this.tasks = tasks;
+        this.metrics = metrics;
+    }
+
+    VestigeWorker(final PooledWorkerTasks pooledWorkerTasks, final VestigeExecutor vestigeExecutor, final VestigeWorkerMetrics metrics) {
+        this.pooledWorkerTasks = pooledWorkerTasks;
+        this.vestigeExecutor = vestigeExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the worker creating threads and timers, a pooled worker must not create them on a carrier shared with other workers
+     */
+    private VestigeWorker getThreadCreationWorker() throws InterruptedException {
+        if (pooledWorkerTasks == null) {
+            return this;
+        }
+        return vestigeExecutor.getThreadCreationWorker();
+    }
+
+    private boolean isTerminated() {
+        if (pooledWorkerTasks != null) {
+            return pooledWorkerTasks.isTerminated();
+        }
+        return thread.getState() == Thread.State.TERMINATED;
+    }
+
+    /**
+     * @return the task to queue, measured if this worker has metrics
+     */
+    private Runnable measure(final Runnable task) {
+        if (metrics == null) {
+            return task;
+        }
+        if (isTerminated()) {
+            metrics.taskRejected();
+            return task;
+        }
+        metrics.taskSubmitted();
+        return new MeasuredTask(task, metrics);
     }
 
     public <V> Future<V> submit(final Callable<V> callable) {
         FutureTask<V> futureTask = new FutureTask<V>(callable);
-        synchronized (tasks) {
-            tasks.addLast(futureTask);
-            tasks.notifyAll();
+        Runnable task = measure(futureTask);
+        if (pooledWorkerTasks != null) {
+            pooledWorkerTasks.offer(task);
+        } else if (legacyTasks != null) {
+            synchronized (legacyTasks) {
+                legacyTasks.addLast(task);
+                legacyTasks.notifyAll();
+            }
+        } else {
+            tasks.offer(task);
         }
         return futureTask;
     }
 
+    /**
+     * Submits the callables in order, the worker is woken at most once.
+     */
+    public <V> List<Future<V>> submitAll(final Collection<? extends Callable<V>> callables) {
+        List<Future<V>> futures = new ArrayList<Future<V>>(callables.size());
+        Runnable[] runnables = new Runnable[callables.size()];
+        int i = 0;
+        for (Callable<V> callable : callables) {
+            FutureTask<V> futureTask = new FutureTask<V>(callable);
+            futures.add(futureTask);
+            runnables[i++] = measure(futureTask);
+        }
+        if (pooledWorkerTasks != null) {
+            pooledWorkerTasks.offerAll(runnables);
+        } else if (legacyTasks != null) {
+            synchronized (legacyTasks) {
+                for (Runnable runnable : runnables) {
+                    legacyTasks.addLast(runnable);
+                }
+                legacyTasks.notifyAll();
+            }
+        } else {
+            tasks.offerAll(runnables);
+        }
+        return futures;
+    }
+
     public Object invoke(final ClassLoader contextClassLoader, final Method method, final Object obj, final Object... args)
             throws InterruptedException, IllegalAccessException, InvocationTargetException {
         Future<Object> submit = submit(new InvokeMethod(contextClassLoader, method, obj, args));
@@ -102,7 +204,27 @@ public class VestigeWorker {
      * @throws InterruptedException
      */
     public Thread createThread(final ThreadGroup group, final Runnable target, final String name, final long stackSize) throws InterruptedException {
-        Future<Thread> submit = submit(new CreateThread(group, target, name, stackSize));
+        Future<Thread> submit = getThreadCreationWorker().submit(new CreateThread(group, target, name, stackSize));
+        try {
+            return submit.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new Error("Unknown throwable", cause);
+        }
+    }
+
+    /**
+     * Virtual thread created by this worker, so it does not inherit the context class loader of the caller.
+     * @throws InterruptedException
+     * @throws UnsupportedOperationException if the jdk does not support virtual threads
+     */
+    public Thread createVirtualThread(final Runnable target, final String name) throws InterruptedException {
+        Future<Thread> submit = getThreadCreationWorker().submit(new CreateVirtualThread(target, name));
         try {
             return submit.get();
         } catch (ExecutionException e) {
@@ -121,7 +243,7 @@ public class VestigeWorker {
      * @throws InterruptedException
      */
     public Timer createTimer(final String name, final boolean isDaemon) throws InterruptedException {
-        Future<Timer> submit = submit(new CreateTimer(name, isDaemon));
+        Future<Timer> submit = getThreadCreationWorker().submit(new CreateTimer(name, isDaemon));
         try {
             return submit.get();
         } catch (ExecutionException e) {
@@ -157,11 +279,22 @@ public class VestigeWorker {
     }
 
     public void interrupt() {
-        thread.interrupt();
+        if (metrics != null) {
+            metrics.workerInterrupted();
+        }
+        if (pooledWorkerTasks != null) {
+            pooledWorkerTasks.interrupt();
+        } else {
+            thread.interrupt();
+        }
     }
 
     public void join() throws InterruptedException {
-        thread.join();
+        if (pooledWorkerTasks != null) {
+            pooledWorkerTasks.join();
+        } else {
+            thread.join();
+        }
     }
 
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+/**
+ * Receives the events of a worker. Methods are called by submitting threads and by the thread running the tasks, so implementations must be thread safe and cheap.
+ * @author Gael Lalire
+ */
+public interface VestigeWorkerMetrics {
+
+    /**
+     * A task was queued.
+     */
+    void taskSubmitted();
+
+    /**
+     * A task was submitted to a terminated worker, it will never run.
+     */
+    void taskRejected();
+
+    /**
+     * @param waitNanos time between the submission and the start of the task
+     */
+    void taskStarted(long waitNanos);
+
+    /**
+     * @param serviceNanos time between the start and the end of the task
+     */
+    void taskCompleted(long serviceNanos);
+
+    void workerInterrupted();
+
+    /**
+     * The worker will not run tasks anymore.
+     */
+    void workerTerminated();
+
+}
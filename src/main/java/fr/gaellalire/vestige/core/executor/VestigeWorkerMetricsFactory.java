@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+/**
+ * Provides the metrics of each worker created by a {@link VestigeExecutor}.
+ * @author Gael Lalire
+ */
+public interface VestigeWorkerMetricsFactory {
+
+    /**
+     * @param workerName name of the worker thread, or a generated name for pooled workers
+     * @return the metrics of the worker, or null to not measure it
+     */
+    VestigeWorkerMetrics createWorkerMetrics(String workerName);
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock free task queue with many producers and a single consumer, the worker thread or the carrier draining a pooled worker. Producers append with one atomic exchange of
+ * the tail, and only unpark the consumer if it is waiting.
+ * @author Gael Lalire
+ */
+public final class VestigeWorkerTaskQueue {
+
+    /**
+     * Nodes are linked after the tail exchange, so a consumer may see the tail moved before the next link.
+     */
+    private static final class Node {
+
+        private Runnable task;
+
+        private volatile Node next;
+
+        Node(final Runnable task) {
+            this.task = task;
+        }
+
+    }
+
+    /**
+     * Last consumed node, only accessed by the consumer.
+     */
+    private Node head;
+
+    private final AtomicReference<Node> tail;
+
+    private volatile Thread waiter;
+
+    public VestigeWorkerTaskQueue() {
+        head = new Node(null);
+        tail = new AtomicReference<Node>(head);
+    }
+
+    public void offer(final Runnable task) {
+        Node node = new Node(task);
+        append(node, node);
+    }
+
+    /**
+     * Appends all tasks with a single tail exchange and at most one unpark.
+     */
+    public void offerAll(final Runnable[] tasks) {
+        if (tasks.length == 0) {
+            return;
+        }
+        Node first = new Node(tasks[0]);
+        Node last = first;
+        for (int i = 1; i < tasks.length; i++) {
+            Node node = new Node(tasks[i]);
+            last.next = node;
+            last = node;
+        }
+        append(first, last);
+    }
+
+    private void append(final Node first, final Node last) {
+        Node previous = tail.getAndSet(last);
+        previous.next = first;
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Must only be called by the consumer.
+     * @return true if no task was appended since the last one taken, including tasks not yet linked
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /**
+     * Must only be called by the consumer, it may then stop consuming and let another thread check the mark.
+     * @return a mark which stays the tail until a task is appended
+     */
+    Object getTailMark() {
+        return tail.get();
+    }
+
+    /**
+     * May be called by any thread.
+     * @return true if a task was appended after the mark was taken
+     */
+    boolean hasAppendedSince(final Object tailMark) {
+        return tail.get() != tailMark;
+    }
+
+    /**
+     * Must only be called by the consumer.
+     * @return the next task or null if there is none yet
+     */
+    Runnable poll() {
+        Node next = head.next;
+        if (next == null) {
+            if (tail.get() == head) {
+                return null;
+            }
+            // a producer is between the tail exchange and the link
+            do {
+                Thread.yield();
+                next = head.next;
+            } while (next == null);
+        }
+        Runnable task = next.task;
+        next.task = null;
+        head = next;
+        return task;
+    }
+
+    /**
+     * Must only be called by the consumer thread. The interruption is only checked when the queue is empty, so pending tasks are run first.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Runnable take() throws InterruptedException {
+        Runnable task = poll();
+        if (task != null) {
+            return task;
+        }
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                // check again after waiter is visible to producers
+                task = poll();
+                if (task != null) {
+                    return task;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.park(this);
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+}
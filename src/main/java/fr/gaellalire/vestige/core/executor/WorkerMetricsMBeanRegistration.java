@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registration of the metrics of a worker in the platform MBean server. This class is only loaded when MBeans are requested, so java.management stays optional.
+ * @author Gael Lalire
+ */
+final class WorkerMetricsMBeanRegistration {
+
+    public static final String DOMAIN = "fr.gaellalire.vestige";
+
+    private static final AtomicLong ID = new AtomicLong();
+
+    private ObjectName objectName;
+
+    public void register(final HistogramVestigeWorkerMetrics workerMetrics) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            // worker names are not unique
+            ObjectName name = new ObjectName(DOMAIN + ":type=VestigeWorker,name=" + ObjectName.quote(workerMetrics.getWorkerName()) + ",id=" + ID.incrementAndGet());
+            mBeanServer.registerMBean(workerMetrics, name);
+            synchronized (this) {
+                objectName = name;
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register worker metrics", e);
+        }
+    }
+
+    public void unregister() {
+        ObjectName name;
+        synchronized (this) {
+            name = objectName;
+            objectName = null;
+        }
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            // already unregistered
+        }
+    }
+
+}
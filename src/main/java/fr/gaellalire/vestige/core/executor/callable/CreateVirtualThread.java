@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.executor.callable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+
+/**
+ * Creates an unstarted virtual thread with Thread.ofVirtual(), which exists since jdk 21 or since jdk 19 with preview features enabled.
+ * @author Gael Lalire
+ */
+public class CreateVirtualThread implements Callable<Thread> {
+
+    private static final Method OF_VIRTUAL_METHOD;
+
+    private static final Method NAME_METHOD;
+
+    private static final Method UNSTARTED_METHOD;
+
+    static {
+        Method ofVirtualMethod;
+        Method nameMethod;
+        Method unstartedMethod;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            nameMethod = builderClass.getMethod("name", String.class);
+            unstartedMethod = builderClass.getMethod("unstarted", Runnable.class);
+            // in jdk 19 and 20 it is a preview feature which throws UnsupportedOperationException if not enabled
+            ofVirtualMethod.invoke(null);
+        } catch (Exception e) {
+            // not in jdk 21 or not enabled
+            ofVirtualMethod = null;
+            nameMethod = null;
+            unstartedMethod = null;
+        }
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        NAME_METHOD = nameMethod;
+        UNSTARTED_METHOD = unstartedMethod;
+    }
+
+    private Runnable target;
+
+    private String name;
+
+    public CreateVirtualThread(final Runnable target, final String name) {
+        this.target = target;
+        this.name = name;
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    public Thread call() {
+        if (OF_VIRTUAL_METHOD == null) {
+            throw new UnsupportedOperationException("Virtual threads require jdk 21");
+        }
+        try {
+            Object builder = NAME_METHOD.invoke(OF_VIRTUAL_METHOD.invoke(null), name);
+            return (Thread) UNSTARTED_METHOD.invoke(builder, target);
+        } catch (IllegalAccessException e) {
+            throw new Error("Thread builder not accessible", e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new Error("Unknown throwable", cause);
+        }
+    }
+
+}
@@ -20,6 +20,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.concurrent.Callable;
 
+import fr.gaellalire.vestige.core.MethodInvoker;
+
 /**
  * @author Gael Lalire
  */
@@ -44,7 +46,7 @@ public class InvokeMethod implements Callable<Object> {
         Thread currentThread = Thread.currentThread();
         currentThread.setContextClassLoader(contextClassLoader);
         try {
-            return method.invoke(obj, args);
+            return MethodInvoker.invoke(method, obj, args);
         } finally {
             currentThread.setContextClassLoader(null);
         }
@@ -25,9 +25,23 @@ import java.util.logging.LogRecord;
  */
 public class DelegateVestigeLogger implements VestigeLogger {
 
-    private volatile VestigeLogger logger;
+    /**
+     * Logger and the factory generation it was created from, published together.
+     */
+    private static final class ResolvedLogger {
 
-    private volatile VestigeLoggerFactory factory;
+        private final int generation;
+
+        private final VestigeLogger logger;
+
+        ResolvedLogger(final int generation, final VestigeLogger logger) {
+            this.generation = generation;
+            this.logger = logger;
+        }
+
+    }
+
+    private volatile ResolvedLogger resolvedLogger;
 
     private String name;
 
@@ -40,17 +54,18 @@ public class DelegateVestigeLogger implements VestigeLogger {
     }
 
     public VestigeLogger getLogger() {
-        VestigeLoggerFactory newFactory = VestigeLoggerFactory.getVestigeLoggerFactory();
-        VestigeLoggerFactory currentFactory = this.factory;
-        if (newFactory == null) {
-            this.factory = null;
-            logger = null;
-        } else {
-            if (newFactory != currentFactory) {
-                this.factory = currentFactory;
-                logger = newFactory.createLogger(name);
-            }
+        int generation = VestigeLoggerFactory.getGeneration();
+        ResolvedLogger resolvedLogger = this.resolvedLogger;
+        if (resolvedLogger != null && resolvedLogger.generation == generation) {
+            return resolvedLogger.logger;
+        }
+        VestigeLoggerFactory factory = VestigeLoggerFactory.getVestigeLoggerFactory();
+        VestigeLogger logger = null;
+        if (factory != null) {
+            logger = factory.createLogger(name);
         }
+        // a concurrent change of factory increments the generation again, so the next call resolves again
+        this.resolvedLogger = new ResolvedLogger(generation, logger);
         return logger;
     }
 
@@ -17,6 +17,11 @@
 
 package fr.gaellalire.vestige.core.logger;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
@@ -25,9 +30,66 @@ import java.util.logging.Logger;
  */
 public class JULLogManager extends LogManager {
 
+    /**
+     * @author Gael Lalire
+     */
+    private static final class LoggerReference extends WeakReference<JULLogger> {
+
+        private final String name;
+
+        LoggerReference(final String name, final JULLogger referent, final ReferenceQueue<JULLogger> queue) {
+            super(referent, queue);
+            this.name = name;
+        }
+
+    }
+
+    private final ConcurrentMap<String, LoggerReference> loggers = new ConcurrentHashMap<String, LoggerReference>();
+
+    private final ReferenceQueue<JULLogger> referenceQueue = new ReferenceQueue<JULLogger>();
+
+    private void expungeStaleLoggers() {
+        Reference<? extends JULLogger> reference = referenceQueue.poll();
+        while (reference != null) {
+            LoggerReference loggerReference = (LoggerReference) reference;
+            loggers.remove(loggerReference.name, loggerReference);
+            reference = referenceQueue.poll();
+        }
+    }
+
+    /**
+     * Loggers are kept while they are used, so the same instance is returned for a name.
+     */
     @Override
     public Logger getLogger(final String name) {
-        return new JULLogger(name, VestigeLoggerFactory.getLogger(name));
+        LoggerReference loggerReference = loggers.get(name);
+        if (loggerReference != null) {
+            JULLogger logger = loggerReference.get();
+            if (logger != null) {
+                return logger;
+            }
+        }
+        expungeStaleLoggers();
+        JULLogger logger = new JULLogger(name, VestigeLoggerFactory.getLogger(name));
+        LoggerReference newLoggerReference = new LoggerReference(name, logger, referenceQueue);
+        while (true) {
+            if (loggerReference == null) {
+                loggerReference = loggers.putIfAbsent(name, newLoggerReference);
+                if (loggerReference == null) {
+                    return logger;
+                }
+            } else {
+                JULLogger existingLogger = loggerReference.get();
+                if (existingLogger != null) {
+                    // another thread registered it first
+                    return existingLogger;
+                }
+                if (loggers.replace(name, loggerReference, newLoggerReference)) {
+                    return logger;
+                }
+                loggerReference = loggers.get(name);
+            }
+        }
     }
 
 }
@@ -22,10 +22,21 @@ package fr.gaellalire.vestige.core.logger;
  */
 public abstract class VestigeLoggerFactory {
 
-    private static VestigeLoggerFactory factory;
+    private static volatile VestigeLoggerFactory factory;
 
-    public static void setVestigeLoggerFactory(final VestigeLoggerFactory factory) {
+    /**
+     * Incremented after each factory change, so loggers can keep what they resolved until it changes.
+     */
+    private static volatile int generation;
+
+    public static synchronized void setVestigeLoggerFactory(final VestigeLoggerFactory factory) {
         VestigeLoggerFactory.factory = factory;
+        // written after the factory, a reader seeing the new generation sees the new factory
+        generation++;
+    }
+
+    static int getGeneration() {
+        return generation;
     }
 
     public static VestigeLoggerFactory getVestigeLoggerFactory() {
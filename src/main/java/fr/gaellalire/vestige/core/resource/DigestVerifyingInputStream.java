@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest the entry while it is read and compare with the manifest at the end of the stream.
+ * @author Gael Lalire
+ */
+class DigestVerifyingInputStream extends FilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 4096;
+
+    private SecureJarEntryResource secureJarEntryResource;
+
+    private EntryDigest entryDigest;
+
+    private MessageDigest messageDigest;
+
+    private boolean ended;
+
+    DigestVerifyingInputStream(final InputStream in, final SecureJarEntryResource secureJarEntryResource, final EntryDigest entryDigest) throws IOException {
+        super(in);
+        this.secureJarEntryResource = secureJarEntryResource;
+        this.entryDigest = entryDigest;
+        messageDigest = createMessageDigest(entryDigest);
+    }
+
+    static MessageDigest createMessageDigest(final EntryDigest entryDigest) throws IOException {
+        try {
+            return MessageDigest.getInstance(entryDigest.getAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Digest algorithm " + entryDigest.getAlgorithm() + " not available", e);
+        }
+    }
+
+    static void checkDigest(final SecureJarEntryResource secureJarEntryResource, final EntryDigest entryDigest, final byte[] digest) {
+        if (!MessageDigest.isEqual(digest, entryDigest.getExpectedDigest())) {
+            throw new SecurityException(entryDigest.getAlgorithm() + " digest error for " + secureJarEntryResource.getZipArchiveEntry().getName());
+        }
+        secureJarEntryResource.setVerified();
+    }
+
+    private void end() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        checkDigest(secureJarEntryResource, entryDigest, messageDigest.digest());
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = in.read();
+        if (read == -1) {
+            end();
+        } else {
+            messageDigest.update((byte) read);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read == -1) {
+            end();
+        } else {
+            messageDigest.update(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        // skipped bytes must be digested too
+        byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if (read == -1) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+}
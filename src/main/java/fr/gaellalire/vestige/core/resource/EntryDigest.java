@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.security.CodeSigner;
+
+/**
+ * Digest expected by the manifest for an entry whose verification is deferred.
+ * @author Gael Lalire
+ */
+final class EntryDigest {
+
+    private final String algorithm;
+
+    private final byte[] expectedDigest;
+
+    private final CodeSigner[] codeSigners;
+
+    EntryDigest(final String algorithm, final byte[] expectedDigest, final CodeSigner[] codeSigners) {
+        this.algorithm = algorithm;
+        this.expectedDigest = expectedDigest;
+        this.codeSigners = codeSigners;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public byte[] getExpectedDigest() {
+        return expectedDigest;
+    }
+
+    /**
+     * @return the signers of the entry once its digest is verified
+     */
+    public CodeSigner[] getCodeSigners() {
+        return codeSigners;
+    }
+
+}
@@ -21,8 +21,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.CodeSigner;
 
+import fr.gaellalire.vestige.core.zip.IOUtils;
+
 /**
  * @author Gael Lalire
  */
@@ -47,6 +50,21 @@ public class FileResource implements VestigeResource {
         return file.length();
     }
 
+    @Override
+    public byte[] readFully() throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            return IOUtils.readFully(inputStream, file.length());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return null;
+    }
+
     @Override
     public String getName() {
         return file.getName();
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.util.Set;
+
+/**
+ * A {@link VestigeResourceLocator} able to list its content, so a class loader can skip it when looking for a resource in a directory it does not contain.
+ * @author Gael Lalire
+ */
+public interface IndexableVestigeResourceLocator extends VestigeResourceLocator {
+
+    /**
+     * @return the parent directory of each resource (separated by '/', without trailing '/' and "" for root resources), or null if the content cannot be listed
+     */
+    Set<String> getResourceDirectories();
+
+}
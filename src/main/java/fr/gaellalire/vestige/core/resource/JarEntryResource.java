@@ -19,10 +19,13 @@ package fr.gaellalire.vestige.core.resource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.CodeSigner;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import fr.gaellalire.vestige.core.zip.IOUtils;
+
 /**
  * @author Gael Lalire
  */
@@ -68,6 +71,21 @@ public class JarEntryResource implements VestigeResource {
         return jarEntry.getSize();
     }
 
+    @Override
+    public byte[] readFully() throws IOException {
+        InputStream inputStream = getInputStream();
+        try {
+            return IOUtils.readFully(inputStream, jarEntry.getSize());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return null;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -23,17 +23,20 @@ import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.jar.Manifest;
 import java.util.zip.ZipFile;
 
 /**
  * @author Gael Lalire
  */
-public class JarFileResourceLocator implements VestigeResourceLocator, PackageMetadata, Closeable {
+public class JarFileResourceLocator implements IndexableVestigeResourceLocator, PackageMetadata, Closeable {
+
+    private static final String META_INF_VERSIONS = "META-INF/versions/";
 
     private static final Constructor<JarFile> RUNTIME_JAR_FILE_CONSTRUCTOR;
 
@@ -59,40 +62,49 @@ public class JarFileResourceLocator implements VestigeResourceLocator, PackageMe
 
     private AtomicReference<JarFile> jarFileAtomicReference = new AtomicReference<JarFile>(null);
 
-    private Manifest manifest;
-
-    private String specTitle, specVersion, specVendor, implTitle, implVersion, implVendor;
-
-    private boolean sealed;
+    private volatile PackageMetadataTable packageMetadataTable;
 
     private URL codeSourceURL;
 
+    private PackageMetadataTable getPackageMetadataTable() {
+        PackageMetadataTable packageMetadataTable = this.packageMetadataTable;
+        if (packageMetadataTable == null) {
+            try {
+                openIfNot();
+            } catch (IOException e) {
+                return PackageMetadataTable.EMPTY;
+            }
+            packageMetadataTable = this.packageMetadataTable;
+        }
+        return packageMetadataTable;
+    }
+
     public String getSpecTitle() {
-        return specTitle;
+        return getPackageMetadataTable().getMainPackageMetadata().getSpecTitle();
     }
 
     public String getSpecVersion() {
-        return specVersion;
+        return getPackageMetadataTable().getMainPackageMetadata().getSpecVersion();
     }
 
     public String getSpecVendor() {
-        return specVendor;
+        return getPackageMetadataTable().getMainPackageMetadata().getSpecVendor();
     }
 
     public String getImplTitle() {
-        return implTitle;
+        return getPackageMetadataTable().getMainPackageMetadata().getImplTitle();
     }
 
     public String getImplVersion() {
-        return implVersion;
+        return getPackageMetadataTable().getMainPackageMetadata().getImplVersion();
     }
 
     public String getImplVendor() {
-        return implVendor;
+        return getPackageMetadataTable().getMainPackageMetadata().getImplVendor();
     }
 
     public boolean isSealed() {
-        return sealed;
+        return getPackageMetadataTable().getMainPackageMetadata().isSealed();
     }
 
     public JarFileResourceLocator(final File file) {
@@ -136,19 +148,9 @@ public class JarFileResourceLocator implements VestigeResourceLocator, PackageMe
                 }
             }
         }
-        manifest = jarFile.getManifest();
-
-        Attributes attr = manifest.getMainAttributes();
-        if (attr != null) {
-            specTitle = attr.getValue(Attributes.Name.SPECIFICATION_TITLE);
-            specVersion = attr.getValue(Attributes.Name.SPECIFICATION_VERSION);
-            specVendor = attr.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-            implTitle = attr.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-            implVersion = attr.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-            implVendor = attr.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-            if ("true".equalsIgnoreCase(attr.getValue(Attributes.Name.SEALED))) {
-                this.sealed = true;
-            }
+        if (packageMetadataTable == null) {
+            // the file does not change, the manifest is parsed only once
+            packageMetadataTable = new PackageMetadataTable(jarFile.getManifest());
         }
         return jarFile;
     }
@@ -169,96 +171,46 @@ public class JarFileResourceLocator implements VestigeResourceLocator, PackageMe
     }
 
     @Override
-    public PackageMetadata getPackageMetadata(final String pn) {
-        if (manifest == null) {
-            return this;
-        }
-        final Attributes attr = manifest.getAttributes(pn.replace('.', '/').concat("/"));
-        if (attr == null) {
-            return this;
+    public Set<String> getResourceDirectories() {
+        JarFile jarFile;
+        try {
+            jarFile = openIfNot();
+        } catch (IOException e) {
+            return null;
         }
-        return new PackageMetadata() {
-
-            @Override
-            public boolean isSealed() {
-                String value = attr.getValue(Attributes.Name.SEALED);
-                if (value == null) {
-                    return JarFileResourceLocator.this.sealed;
-                }
-                if ("true".equalsIgnoreCase(value)) {
-                    return true;
-                }
-                return false;
+        Set<String> directories = new HashSet<String>();
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            int lastIndexOf = name.lastIndexOf('/');
+            if (lastIndexOf == -1) {
+                directories.add("");
+                continue;
             }
-
-            @Override
-            public String getSpecVersion() {
-                String value = attr.getValue(Attributes.Name.SPECIFICATION_VERSION);
-                if (value == null) {
-                    return JarFileResourceLocator.this.specVersion;
-                }
-                return value;
-            }
-
-            @Override
-            public String getSpecVendor() {
-                String value = attr.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-                if (value == null) {
-                    return JarFileResourceLocator.this.specVendor;
-                }
-                return value;
-            }
-
-            @Override
-            public String getSpecTitle() {
-                String value = attr.getValue(Attributes.Name.SPECIFICATION_TITLE);
-                if (value == null) {
-                    return JarFileResourceLocator.this.specTitle;
-                }
-                return value;
-            }
-
-            @Override
-            public String getImplVersion() {
-                String value = attr.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-                if (value == null) {
-                    return JarFileResourceLocator.this.implVersion;
-                }
-                return value;
-            }
-
-            @Override
-            public String getImplVendor() {
-                String value = attr.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-                if (value == null) {
-                    return JarFileResourceLocator.this.implVendor;
+            directories.add(name.substring(0, lastIndexOf));
+            if (name.startsWith(META_INF_VERSIONS)) {
+                // versioned entry may be returned by getJarEntry with its unversioned name
+                int sep = name.indexOf('/', META_INF_VERSIONS.length());
+                if (sep != -1) {
+                    if (sep == lastIndexOf) {
+                        directories.add("");
+                    } else {
+                        directories.add(name.substring(sep + 1, lastIndexOf));
+                    }
                 }
-                return value;
             }
+        }
+        return directories;
+    }
 
-            @Override
-            public String getImplTitle() {
-                String value = attr.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-                if (value == null) {
-                    return JarFileResourceLocator.this.implTitle;
-                }
-                return value;
-            }
-        };
+    @Override
+    public PackageMetadata getPackageMetadata(final String pn) {
+        return getPackageMetadataTable().getPackageMetadata(pn);
     }
 
     @Override
     public boolean isPackageSealed(final String packageName) {
-        String path = packageName.replace('.', '/').concat("/");
-        Attributes attr = manifest.getAttributes(path);
-        String sealed = null;
-        if (attr != null) {
-            sealed = attr.getValue(Attributes.Name.SEALED);
-        }
-        if (sealed == null) {
-            return this.sealed;
-        }
-        return "true".equalsIgnoreCase(sealed);
+        return getPackageMetadataTable().isPackageSealed(packageName);
     }
 
     @Override
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.CodeSigner;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import fr.gaellalire.vestige.core.zip.ZipArchiveEntry;
+import fr.gaellalire.vestige.core.zip.ZipFile;
+
+/**
+ * Prepare the deferred verification of a signed jar. Signature files must sign the whole manifest, so the signers of an entry only depend on the signature files listing
+ * it. The JarInputStream verifies the signature blocks and one representative entry of each group of entries listed by the same signature files, the other entries get the
+ * signers of their representative once their own digest is verified.
+ * @author Gael Lalire
+ */
+final class LazyJarVerifier {
+
+    /**
+     * Strongest first.
+     */
+    private static final String[] DIGEST_ALGORITHMS = {"SHA-512", "SHA-384", "SHA-256", "SHA-1"};
+
+    private static final String DIGEST_SUFFIX = "-DIGEST";
+
+    private static final String BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    private LazyJarVerifier() {
+    }
+
+    /**
+     * @return false if the jar must be verified eagerly
+     */
+    public static boolean prepare(final ZipFile zipFile, final byte[] manifestBytes, final Manifest manifest, final ZipArchiveEntry manifestEntry,
+            final List<ZipArchiveEntry> signatureEntries, final Map<String, SecureJarEntryResource> resourceByEntryName) throws IOException {
+        List<Manifest> signatureFiles = new ArrayList<Manifest>();
+        List<String> signatureFileNames = new ArrayList<String>();
+        for (ZipArchiveEntry signatureEntry : signatureEntries) {
+            String name = signatureEntry.getName();
+            if (!name.toUpperCase(Locale.ENGLISH).endsWith(".SF")) {
+                continue;
+            }
+            InputStream inputStream = zipFile.getInputStream(signatureEntry);
+            Manifest signatureFile;
+            try {
+                signatureFile = new Manifest(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            if (!isWholeManifestSigned(signatureFile.getMainAttributes(), manifestBytes)) {
+                return false;
+            }
+            signatureFiles.add(signatureFile);
+            signatureFileNames.add(name);
+        }
+
+        Map<String, List<SecureJarEntryResource>> resourcesByGroup = new LinkedHashMap<String, List<SecureJarEntryResource>>();
+        Map<SecureJarEntryResource, EntryDigest> entryDigests = new LinkedHashMap<SecureJarEntryResource, EntryDigest>();
+        for (Entry<String, Attributes> entry : manifest.getEntries().entrySet()) {
+            String name = entry.getKey();
+            SecureJarEntryResource secureJarEntryResource = resourceByEntryName.get(name);
+            if (secureJarEntryResource == null || secureJarEntryResource.getZipArchiveEntry().isDirectory() || SecureJarFileResourceLocator.isSignatureRelated(name)
+                    || JarFile.MANIFEST_NAME.equals(name)) {
+                continue;
+            }
+            Attributes attributes = entry.getValue();
+            String algorithm = null;
+            String expectedDigest = null;
+            for (String digestAlgorithm : DIGEST_ALGORITHMS) {
+                expectedDigest = attributes.getValue(digestAlgorithm + "-Digest");
+                if (expectedDigest != null) {
+                    algorithm = digestAlgorithm;
+                    break;
+                }
+            }
+            StringBuilder group = new StringBuilder();
+            for (Object key : attributes.keySet()) {
+                String attributeName = key.toString().toUpperCase(Locale.ENGLISH);
+                if (attributeName.endsWith(DIGEST_SUFFIX)) {
+                    group.append(attributeName).append(' ');
+                }
+            }
+            if (algorithm == null) {
+                if (group.length() != 0) {
+                    // unsupported digest, let the JarInputStream decide
+                    return false;
+                }
+                // no digest, not signed
+                continue;
+            }
+            byte[] expectedDigestBytes = decodeBase64(expectedDigest);
+            if (expectedDigestBytes == null) {
+                return false;
+            }
+            group.append('|');
+            boolean signed = false;
+            for (int i = 0; i < signatureFiles.size(); i++) {
+                if (signatureFiles.get(i).getAttributes(name) != null) {
+                    group.append(signatureFileNames.get(i)).append(' ');
+                    signed = true;
+                }
+            }
+            entryDigests.put(secureJarEntryResource, new EntryDigest(algorithm, expectedDigestBytes, null));
+            if (signed) {
+                String key = group.toString();
+                List<SecureJarEntryResource> resources = resourcesByGroup.get(key);
+                if (resources == null) {
+                    resources = new ArrayList<SecureJarEntryResource>();
+                    resourcesByGroup.put(key, resources);
+                }
+                resources.add(secureJarEntryResource);
+            }
+        }
+
+        // the smallest entry of each group is verified now, with the signature blocks
+        List<ZipArchiveEntry> verifiedEntries = SecureJarFileResourceLocator.getMetaEntries(manifestEntry, signatureEntries);
+        List<SecureJarEntryResource> representatives = new ArrayList<SecureJarEntryResource>();
+        for (List<SecureJarEntryResource> resources : resourcesByGroup.values()) {
+            SecureJarEntryResource representative = resources.get(0);
+            for (SecureJarEntryResource secureJarEntryResource : resources) {
+                if (secureJarEntryResource.getZipArchiveEntry().getSize() < representative.getZipArchiveEntry().getSize()) {
+                    representative = secureJarEntryResource;
+                }
+            }
+            representatives.add(representative);
+            verifiedEntries.add(representative.getZipArchiveEntry());
+        }
+        SecureJarFileResourceLocator.verifyEntries(zipFile, verifiedEntries, resourceByEntryName);
+
+        int i = 0;
+        for (List<SecureJarEntryResource> resources : resourcesByGroup.values()) {
+            SecureJarEntryResource representative = representatives.get(i++);
+            CodeSigner[] codeSigners = representative.getCodeSigners();
+            for (SecureJarEntryResource secureJarEntryResource : resources) {
+                if (secureJarEntryResource != representative) {
+                    EntryDigest entryDigest = entryDigests.get(secureJarEntryResource);
+                    entryDigests.put(secureJarEntryResource, new EntryDigest(entryDigest.getAlgorithm(), entryDigest.getExpectedDigest(), codeSigners));
+                }
+            }
+            entryDigests.remove(representative);
+        }
+        for (Entry<SecureJarEntryResource, EntryDigest> entry : entryDigests.entrySet()) {
+            entry.getKey().setEntryDigest(entry.getValue());
+        }
+        return true;
+    }
+
+    private static boolean isWholeManifestSigned(final Attributes signatureFileAttributes, final byte[] manifestBytes) {
+        boolean signed = false;
+        for (String digestAlgorithm : DIGEST_ALGORITHMS) {
+            String expectedDigest = signatureFileAttributes.getValue(digestAlgorithm + "-Digest-Manifest");
+            if (expectedDigest == null) {
+                continue;
+            }
+            byte[] digest;
+            try {
+                digest = MessageDigest.getInstance(digestAlgorithm).digest(manifestBytes);
+            } catch (NoSuchAlgorithmException e) {
+                continue;
+            }
+            byte[] expectedDigestBytes = decodeBase64(expectedDigest);
+            if (expectedDigestBytes == null || !MessageDigest.isEqual(digest, expectedDigestBytes)) {
+                return false;
+            }
+            signed = true;
+        }
+        return signed;
+    }
+
+    /**
+     * @return null if value is not valid base64
+     */
+    static byte[] decodeBase64(final String value) {
+        String trimmed = value.trim();
+        int length = trimmed.length();
+        while (length > 0 && trimmed.charAt(length - 1) == '=') {
+            length--;
+        }
+        if (trimmed.length() % 4 != 0) {
+            return null;
+        }
+        byte[] result = new byte[length * 3 / 4];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            int c = BASE64_ALPHABET.indexOf(trimmed.charAt(i));
+            if (c == -1) {
+                return null;
+            }
+            buffer = (buffer << 6) | c;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                result[index++] = (byte) (buffer >> bits);
+            }
+        }
+        return result;
+    }
+
+}
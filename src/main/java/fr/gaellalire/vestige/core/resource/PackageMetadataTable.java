@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Package metadata of a manifest, parsed once. Instances are immutable and can be shared between threads without synchronization.
+ * @author Gael Lalire
+ */
+public final class PackageMetadataTable {
+
+    public static final PackageMetadataTable EMPTY = new PackageMetadataTable(null);
+
+    private final ImmutablePackageMetadata mainPackageMetadata;
+
+    private final Map<String, ImmutablePackageMetadata> packageMetadataByName;
+
+    public PackageMetadataTable(final Manifest manifest) {
+        if (manifest == null) {
+            mainPackageMetadata = new ImmutablePackageMetadata(null, null);
+            packageMetadataByName = Collections.emptyMap();
+            return;
+        }
+        mainPackageMetadata = new ImmutablePackageMetadata(manifest.getMainAttributes(), null);
+        Map<String, ImmutablePackageMetadata> packageMetadataByName = new HashMap<String, ImmutablePackageMetadata>();
+        for (Entry<String, Attributes> entry : manifest.getEntries().entrySet()) {
+            String name = entry.getKey();
+            if (!name.endsWith("/")) {
+                // file section (signed jar digests)
+                continue;
+            }
+            Attributes attributes = entry.getValue();
+            if (!ImmutablePackageMetadata.hasPackageAttribute(attributes)) {
+                continue;
+            }
+            String packageName = name.substring(0, name.length() - 1).replace('/', '.');
+            packageMetadataByName.put(packageName, new ImmutablePackageMetadata(attributes, mainPackageMetadata));
+        }
+        this.packageMetadataByName = packageMetadataByName;
+    }
+
+    public PackageMetadata getMainPackageMetadata() {
+        return mainPackageMetadata;
+    }
+
+    public PackageMetadata getPackageMetadata(final String packageName) {
+        PackageMetadata packageMetadata = packageMetadataByName.get(packageName);
+        if (packageMetadata == null) {
+            return mainPackageMetadata;
+        }
+        return packageMetadata;
+    }
+
+    public boolean isPackageSealed(final String packageName) {
+        return getPackageMetadata(packageName).isSealed();
+    }
+
+    /**
+     * @author Gael Lalire
+     */
+    private static final class ImmutablePackageMetadata implements PackageMetadata {
+
+        private final String specTitle, specVersion, specVendor, implTitle, implVersion, implVendor;
+
+        private final boolean sealed;
+
+        ImmutablePackageMetadata(final Attributes attributes, final ImmutablePackageMetadata defaultPackageMetadata) {
+            if (attributes == null) {
+                specTitle = null;
+                specVersion = null;
+                specVendor = null;
+                implTitle = null;
+                implVersion = null;
+                implVendor = null;
+                sealed = false;
+                return;
+            }
+            String specTitle = attributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
+            String specVersion = attributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
+            String specVendor = attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
+            String implTitle = attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
+            String implVersion = attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+            String implVendor = attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
+            String sealed = attributes.getValue(Attributes.Name.SEALED);
+            if (defaultPackageMetadata != null) {
+                if (specTitle == null) {
+                    specTitle = defaultPackageMetadata.specTitle;
+                }
+                if (specVersion == null) {
+                    specVersion = defaultPackageMetadata.specVersion;
+                }
+                if (specVendor == null) {
+                    specVendor = defaultPackageMetadata.specVendor;
+                }
+                if (implTitle == null) {
+                    implTitle = defaultPackageMetadata.implTitle;
+                }
+                if (implVersion == null) {
+                    implVersion = defaultPackageMetadata.implVersion;
+                }
+                if (implVendor == null) {
+                    implVendor = defaultPackageMetadata.implVendor;
+                }
+            }
+            this.specTitle = specTitle;
+            this.specVersion = specVersion;
+            this.specVendor = specVendor;
+            this.implTitle = implTitle;
+            this.implVersion = implVersion;
+            this.implVendor = implVendor;
+            if (sealed == null) {
+                this.sealed = defaultPackageMetadata != null && defaultPackageMetadata.sealed;
+            } else {
+                this.sealed = "true".equalsIgnoreCase(sealed);
+            }
+        }
+
+        static boolean hasPackageAttribute(final Attributes attributes) {
+            return attributes.getValue(Attributes.Name.SPECIFICATION_TITLE) != null || attributes.getValue(Attributes.Name.SPECIFICATION_VERSION) != null
+                    || attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR) != null || attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE) != null
+                    || attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION) != null || attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR) != null
+                    || attributes.getValue(Attributes.Name.SEALED) != null;
+        }
+
+        @Override
+        public String getSpecTitle() {
+            return specTitle;
+        }
+
+        @Override
+        public String getSpecVersion() {
+            return specVersion;
+        }
+
+        @Override
+        public String getSpecVendor() {
+            return specVendor;
+        }
+
+        @Override
+        public String getImplTitle() {
+            return implTitle;
+        }
+
+        @Override
+        public String getImplVersion() {
+            return implVersion;
+        }
+
+        @Override
+        public String getImplVendor() {
+            return implVendor;
+        }
+
+        @Override
+        public boolean isSealed() {
+            return sealed;
+        }
+
+    }
+
+}
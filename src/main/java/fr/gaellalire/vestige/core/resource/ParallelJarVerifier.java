@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import fr.gaellalire.vestige.core.executor.DaemonThreadFactory;
+import fr.gaellalire.vestige.core.zip.ZipArchiveEntry;
+import fr.gaellalire.vestige.core.zip.ZipFile;
+
+/**
+ * Verify a signed jar with several JarInputStream. Entries are sorted by offset and split in contiguous chunks of similar compressed size, each chunk is verified with its
+ * own copy of the manifest and signature files so the signers are the same as with a single stream.
+ * @author Gael Lalire
+ */
+final class ParallelJarVerifier {
+
+    /**
+     * Below this compressed size per thread, handing a chunk to another thread costs more than it saves.
+     */
+    private static final long MIN_CHUNK_SIZE = 256 * 1024;
+
+    private static final Comparator<ZipArchiveEntry> OFFSET_COMPARATOR = new Comparator<ZipArchiveEntry>() {
+
+        @Override
+        public int compare(final ZipArchiveEntry o1, final ZipArchiveEntry o2) {
+            long offset1 = o1.getDataOffset();
+            long offset2 = o2.getDataOffset();
+            if (offset1 < offset2) {
+                return -1;
+            }
+            if (offset1 > offset2) {
+                return 1;
+            }
+            return 0;
+        }
+    };
+
+    private static volatile ExecutorService executorService;
+
+    private ParallelJarVerifier() {
+    }
+
+    /**
+     * Threads are shared by every jar verification, so concurrent openings do not create more threads than processors.
+     */
+    private static ExecutorService getExecutorService() {
+        ExecutorService result = executorService;
+        if (result == null) {
+            synchronized (ParallelJarVerifier.class) {
+                result = executorService;
+                if (result == null) {
+                    int threadCount = Runtime.getRuntime().availableProcessors();
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                            new DaemonThreadFactory("vestige-jar-verifier-"));
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    result = threadPoolExecutor;
+                    executorService = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public static void verify(final ZipFile zipFile, final List<ZipArchiveEntry> metaEntries, final List<ZipArchiveEntry> verifiedEntries,
+            final Map<String, SecureJarEntryResource> resourceByEntryName) throws IOException {
+        long totalSize = 0;
+        for (ZipArchiveEntry zipArchiveEntry : verifiedEntries) {
+            totalSize += zipArchiveEntry.getCompressedSize();
+        }
+        int threadCount = (int) Math.min(Runtime.getRuntime().availableProcessors(), Math.min(verifiedEntries.size(), totalSize / MIN_CHUNK_SIZE));
+        if (threadCount <= 1) {
+            List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>(metaEntries);
+            entries.addAll(verifiedEntries);
+            SecureJarFileResourceLocator.verifyEntries(zipFile, entries, resourceByEntryName);
+            return;
+        }
+
+        List<ZipArchiveEntry> sortedEntries = new ArrayList<ZipArchiveEntry>(verifiedEntries);
+        Collections.sort(sortedEntries, OFFSET_COMPARATOR);
+        List<List<ZipArchiveEntry>> chunks = new ArrayList<List<ZipArchiveEntry>>(threadCount);
+        List<ZipArchiveEntry> chunk = new ArrayList<ZipArchiveEntry>(metaEntries);
+        long size = 0;
+        for (ZipArchiveEntry zipArchiveEntry : sortedEntries) {
+            chunk.add(zipArchiveEntry);
+            size += zipArchiveEntry.getCompressedSize();
+            if (size * threadCount >= totalSize * (chunks.size() + 1) && chunks.size() + 1 < threadCount) {
+                chunks.add(chunk);
+                chunk = new ArrayList<ZipArchiveEntry>(metaEntries);
+            }
+        }
+        if (chunk.size() != metaEntries.size()) {
+            chunks.add(chunk);
+        }
+
+        final Throwable[] failures = new Throwable[chunks.size()];
+        List<Future<?>> futures = new ArrayList<Future<?>>(chunks.size() - 1);
+        ExecutorService executorService = getExecutorService();
+        for (int i = 1; i < chunks.size(); i++) {
+            final int index = i;
+            final List<ZipArchiveEntry> entries = chunks.get(i);
+            futures.add(executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        SecureJarFileResourceLocator.verifyEntries(zipFile, entries, resourceByEntryName);
+                    } catch (Throwable e) {
+                        failures[index] = e;
+                    }
+                }
+            }));
+        }
+        // the current thread verifies the first chunk
+        try {
+            SecureJarFileResourceLocator.verifyEntries(zipFile, chunks.get(0), resourceByEntryName);
+        } catch (Throwable e) {
+            failures[0] = e;
+        }
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // failures are recorded by the task
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (Throwable failure : failures) {
+            if (failure == null) {
+                continue;
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IOException("Verification failed", failure);
+        }
+    }
+
+}
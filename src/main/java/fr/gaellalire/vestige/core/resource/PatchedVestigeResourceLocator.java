@@ -17,11 +17,13 @@
 package fr.gaellalire.vestige.core.resource;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author Gael Lalire
  */
-public class PatchedVestigeResourceLocator implements VestigeResourceLocator {
+public class PatchedVestigeResourceLocator implements IndexableVestigeResourceLocator {
 
     private VestigeResourceLocator original;
 
@@ -53,6 +55,24 @@ public class PatchedVestigeResourceLocator implements VestigeResourceLocator {
         return original.findResource(resourceName);
     }
 
+    @Override
+    public Set<String> getResourceDirectories() {
+        if (!(patch instanceof IndexableVestigeResourceLocator) || !(original instanceof IndexableVestigeResourceLocator)) {
+            return null;
+        }
+        Set<String> patchDirectories = ((IndexableVestigeResourceLocator) patch).getResourceDirectories();
+        if (patchDirectories == null) {
+            return null;
+        }
+        Set<String> originalDirectories = ((IndexableVestigeResourceLocator) original).getResourceDirectories();
+        if (originalDirectories == null) {
+            return null;
+        }
+        Set<String> directories = new HashSet<String>(patchDirectories);
+        directories.addAll(originalDirectories);
+        return directories;
+    }
+
     @Override
     public PackageMetadata getPackageMetadata(final String packageName) {
         if (metadataPatched) {
@@ -50,10 +50,6 @@ public class SecureFile implements Closeable {
 
     private FileChannel channel;
 
-    private long position = 0;
-
-    private Object mutex = new Object();
-
     private MappedByteBuffer map;
 
     private long size;
@@ -86,44 +82,45 @@ public class SecureFile implements Closeable {
         return file;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returned streams are not thread safe, but each thread can use its own stream without any contention.
+     */
     public SeekableInputStream getInputStream() {
         if (map == null) {
+            // positional reads do not modify the channel position so they can run concurrently
             return new SeekableInputStream() {
 
                 private long localPosition = 0;
 
+                private ByteBuffer singleByteBuffer;
+
                 @Override
                 public int read(final byte[] b, final int off, final int len) throws IOException {
-                    int read;
-                    synchronized (mutex) {
-                        if (position != localPosition) {
-                            randomAccessFile.seek(localPosition);
-                            position = localPosition;
-                        }
-                        read = randomAccessFile.read(b, off, len);
-                        if (read != -1) {
-                            localPosition += read;
-                            position = localPosition;
-                        }
+                    if (len == 0) {
+                        return 0;
                     }
-                    return read;
+                    return read(ByteBuffer.wrap(b, off, len));
                 }
 
                 @Override
                 public int read() throws IOException {
-                    int read;
-                    synchronized (mutex) {
-                        if (position != localPosition) {
-                            randomAccessFile.seek(localPosition);
-                            position = localPosition;
-                        }
-                        read = randomAccessFile.read();
-                        if (read != -1) {
-                            localPosition += 1;
-                            position = localPosition;
-                        }
+                    if (singleByteBuffer == null) {
+                        singleByteBuffer = ByteBuffer.allocate(1);
+                    } else {
+                        singleByteBuffer.clear();
                     }
-                    return read;
+                    int read = read(singleByteBuffer);
+                    while (read == 0) {
+                        read = read(singleByteBuffer);
+                    }
+                    if (read == -1) {
+                        return -1;
+                    }
+                    return singleByteBuffer.get(0) & 0xFF;
                 }
 
                 @Override
@@ -138,17 +135,9 @@ public class SecureFile implements Closeable {
 
                 @Override
                 public int read(final ByteBuffer byteBuffer) throws IOException {
-                    int read;
-                    synchronized (mutex) {
-                        if (position != localPosition) {
-                            randomAccessFile.seek(localPosition);
-                            position = localPosition;
-                        }
-                        read = channel.read(byteBuffer);
-                        if (read != -1) {
-                            localPosition += read;
-                            position = localPosition;
-                        }
+                    int read = channel.read(byteBuffer, localPosition);
+                    if (read > 0) {
+                        localPosition += read;
                     }
                     return read;
                 }
@@ -159,83 +148,67 @@ public class SecureFile implements Closeable {
             };
         }
 
+        // each stream has its own view of the mapped buffer, so the position is not shared
+        final ByteBuffer view = map.asReadOnlyBuffer();
         return new SeekableInputStream() {
 
-            private int localPosition = 0;
-
             @Override
             public int read(final byte[] b, final int off, final int len) throws IOException {
-                int read = len;
-                synchronized (mutex) {
-                    if (position != localPosition) {
-                        map.position(localPosition);
-                        position = localPosition;
-                    }
-                    int remaining = map.remaining();
-                    if (remaining == 0) {
-                        return -1;
-                    } else if (len > remaining) {
-                        read = remaining;
+                int remaining = view.remaining();
+                if (remaining == 0) {
+                    if (len == 0) {
+                        return 0;
                     }
-                    map.get(b, off, read);
-                    localPosition += read;
-                    position = localPosition;
+                    return -1;
+                }
+                int read = len;
+                if (len > remaining) {
+                    read = remaining;
                 }
+                view.get(b, off, read);
                 return read;
             }
 
             @Override
             public int read() throws IOException {
-                byte read;
-                synchronized (mutex) {
-                    if (position != localPosition) {
-                        map.position(localPosition);
-                        position = localPosition;
-                    }
-                    int remaining = map.remaining();
-                    if (remaining == 0) {
-                        return -1;
-                    }
-                    read = map.get();
-                    localPosition += 1;
-                    position = localPosition;
+                if (!view.hasRemaining()) {
+                    return -1;
                 }
-                return read & 0xFF;
+                return view.get() & 0xFF;
             }
 
             @Override
             public void seek(final long position) {
-                localPosition = (int) position;
+                if (position > size) {
+                    view.position((int) size);
+                } else {
+                    view.position((int) position);
+                }
             }
 
             @Override
             public long getPosition() {
-                return localPosition;
+                return view.position();
             }
 
             @Override
             public int read(final ByteBuffer byteBuffer) throws IOException {
-                int len = byteBuffer.remaining();
-                int read = len;
-                synchronized (mutex) {
-                    if (position != localPosition) {
-                        map.position(localPosition);
-                        position = localPosition;
+                int remaining = view.remaining();
+                if (remaining == 0) {
+                    if (!byteBuffer.hasRemaining()) {
+                        return 0;
                     }
-                    int remaining = map.remaining();
-                    if (remaining == 0) {
-                        return -1;
-                    } else if (len > remaining) {
-                        read = remaining;
-                    }
-                    byte[] array = byteBuffer.array();
-                    int arrayOffset = byteBuffer.arrayOffset();
-                    int byteBufferPosition = byteBuffer.position();
-                    map.get(array, arrayOffset + byteBufferPosition, read);
-                    byteBuffer.position(byteBufferPosition + read);
-
-                    localPosition += read;
-                    position = localPosition;
+                    return -1;
+                }
+                int read = byteBuffer.remaining();
+                if (read >= remaining) {
+                    read = remaining;
+                    byteBuffer.put(view);
+                } else {
+                    int limit = view.limit();
+                    view.limit(view.position() + read);
+                    byteBuffer.put(view);
+                    view.limit(limit);
                 }
                 return read;
             }
@@ -249,6 +222,40 @@ public class SecureFile implements Closeable {
 
     }
 
+    /**
+     * Read at the given position without any shared state, so it can be called concurrently.
+     */
+    public int read(final ByteBuffer byteBuffer, final long position) throws IOException {
+        if (map == null) {
+            return channel.read(byteBuffer, position);
+        }
+        if (position >= size) {
+            if (!byteBuffer.hasRemaining()) {
+                return 0;
+            }
+            return -1;
+        }
+        ByteBuffer view = map.asReadOnlyBuffer();
+        int read = (int) Math.min(byteBuffer.remaining(), size - position);
+        view.position((int) position);
+        view.limit((int) position + read);
+        byteBuffer.put(view);
+        return read;
+    }
+
+    /**
+     * @return a read only view of the mapped file, or null in {@link Mode#FILE_LOCK} mode
+     */
+    public ByteBuffer getByteBuffer(final long position, final int length) {
+        if (map == null || position < 0 || length < 0 || position + length > size) {
+            return null;
+        }
+        ByteBuffer view = map.asReadOnlyBuffer();
+        view.position((int) position);
+        view.limit((int) position + length);
+        return view.slice();
+    }
+
     public void close() throws IOException {
         randomAccessFile.close();
     }
@@ -19,9 +19,12 @@ package fr.gaellalire.vestige.core.resource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.CodeSigner;
+import java.security.MessageDigest;
 import java.util.jar.JarEntry;
 
+import fr.gaellalire.vestige.core.zip.IOUtils;
 import fr.gaellalire.vestige.core.zip.ZipArchiveEntry;
 
 /**
@@ -35,7 +38,11 @@ public class SecureJarEntryResource implements VestigeResource {
 
     private ZipArchiveEntry zipArchiveEntry;
 
-    private JarEntry jarEntry;
+    private volatile JarEntry jarEntry;
+
+    private volatile EntryDigest entryDigest;
+
+    private volatile boolean verified;
 
     private URL codeSourceURL;
 
@@ -50,18 +57,68 @@ public class SecureJarEntryResource implements VestigeResource {
         return zipArchiveEntry;
     }
 
+    /**
+     * @param jarEntry verified entry, not set if the entry is not signed
+     */
     public void setJarEntry(final JarEntry jarEntry) {
         this.jarEntry = jarEntry;
     }
 
+    void setEntryDigest(final EntryDigest entryDigest) {
+        this.entryDigest = entryDigest;
+    }
+
+    void setVerified() {
+        verified = true;
+    }
+
+    /**
+     * @param codeSigners signers restored from a {@link SecureJarVerificationCache}, the archive content was checked as a whole
+     */
+    void setVerifiedCodeSigners(final CodeSigner[] codeSigners) {
+        verified = true;
+        entryDigest = new EntryDigest(null, null, codeSigners);
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
-        return jarFileResourceLocator.getInputStream(this);
+        InputStream inputStream = jarFileResourceLocator.getInputStream(this);
+        EntryDigest entryDigest = this.entryDigest;
+        if (entryDigest == null || verified) {
+            return inputStream;
+        }
+        return new DigestVerifyingInputStream(inputStream, this, entryDigest);
     }
 
     @Override
     public long getSize() {
-        return jarEntry.getSize();
+        return zipArchiveEntry.getSize();
+    }
+
+    @Override
+    public byte[] readFully() throws IOException {
+        byte[] content = jarFileResourceLocator.readFully(this);
+        EntryDigest entryDigest = this.entryDigest;
+        if (entryDigest != null && !verified) {
+            MessageDigest messageDigest = DigestVerifyingInputStream.createMessageDigest(entryDigest);
+            DigestVerifyingInputStream.checkDigest(this, entryDigest, messageDigest.digest(content));
+        }
+        return content;
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() throws IOException {
+        ByteBuffer byteBuffer = jarFileResourceLocator.getByteBuffer(this);
+        if (byteBuffer == null) {
+            return null;
+        }
+        EntryDigest entryDigest = this.entryDigest;
+        if (entryDigest != null && !verified) {
+            MessageDigest messageDigest = DigestVerifyingInputStream.createMessageDigest(entryDigest);
+            messageDigest.update(byteBuffer.duplicate());
+            DigestVerifyingInputStream.checkDigest(this, entryDigest, messageDigest.digest());
+        }
+        return byteBuffer;
     }
 
     @Override
@@ -76,12 +133,34 @@ public class SecureJarEntryResource implements VestigeResource {
 
     @Override
     public String toString() {
-        return "jar:" + codeSourceURL + "!/" + jarEntry.getName();
+        return "jar:" + codeSourceURL + "!/" + zipArchiveEntry.getName();
     }
 
     @Override
     public CodeSigner[] getCodeSigners() {
-        return jarEntry.getCodeSigners();
+        JarEntry jarEntry = this.jarEntry;
+        if (jarEntry != null) {
+            return jarEntry.getCodeSigners();
+        }
+        EntryDigest entryDigest = this.entryDigest;
+        if (entryDigest == null) {
+            return null;
+        }
+        if (!verified) {
+            // the stream was not read to the end, verify it now
+            try {
+                InputStream inputStream = getInputStream();
+                try {
+                    IOUtils.skip(inputStream, Long.MAX_VALUE);
+                    inputStream.read();
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return entryDigest.getCodeSigners();
     }
 
 }
@@ -16,6 +16,7 @@
 
 package fr.gaellalire.vestige.core.resource;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
@@ -23,23 +24,53 @@ import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.security.CodeSigner;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 
-import fr.gaellalire.vestige.core.zip.SeekableByteChannel;
+import fr.gaellalire.vestige.core.zip.IOUtils;
+import fr.gaellalire.vestige.core.zip.PositionalSeekableByteChannel;
 import fr.gaellalire.vestige.core.zip.ZipArchiveEntry;
 import fr.gaellalire.vestige.core.zip.ZipFile;
 
 /**
  * @author Gael Lalire
  */
-public class SecureJarFileResourceLocator implements VestigeResourceLocator, PackageMetadata, Closeable {
+public class SecureJarFileResourceLocator implements IndexableVestigeResourceLocator, PackageMetadata, Closeable {
+
+    /**
+     * @author Gael Lalire
+     */
+    public static enum VerificationMode {
+
+        /**
+         * Every signed entry is verified when the jar is opened.
+         */
+        EAGER,
+
+        /**
+         * Only signature files are verified when the jar is opened, an entry is verified the first time it is read. Fall back to {@link #EAGER} for jars whose signature files
+         * do not sign the whole manifest.
+         */
+        LAZY,
+
+        /**
+         * Like {@link #EAGER} but entries are split by offset and verified concurrently, one thread per available processor.
+         */
+        PARALLEL;
+    }
 
     private static final String MULTI_RELEASE = "Multi-Release";
 
@@ -49,13 +80,13 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
 
     private SecureFile secureJarFile;
 
-    private Manifest manifest;
+    private volatile PackageMetadataTable packageMetadataTable;
 
-    private String specTitle, specVersion, specVendor, implTitle, implVersion, implVendor;
+    private URL codeSourceURL;
 
-    private boolean sealed;
+    private VerificationMode verificationMode;
 
-    private URL codeSourceURL;
+    private SecureJarVerificationCache verificationCache;
 
     private static final int VERSION;
 
@@ -73,36 +104,50 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
 
     private Map<String, SecureJarEntryResource> jarEntries = new HashMap<String, SecureJarEntryResource>();
 
+    private PackageMetadataTable getPackageMetadataTable() {
+        PackageMetadataTable packageMetadataTable = this.packageMetadataTable;
+        if (packageMetadataTable == null) {
+            try {
+                openIfNot();
+            } catch (IOException e) {
+                return PackageMetadataTable.EMPTY;
+            }
+            packageMetadataTable = this.packageMetadataTable;
+        }
+        return packageMetadataTable;
+    }
+
     public String getSpecTitle() {
-        return specTitle;
+        return getPackageMetadataTable().getMainPackageMetadata().getSpecTitle();
     }
 
     public String getSpecVersion() {
-        return specVersion;
+        return getPackageMetadataTable().getMainPackageMetadata().getSpecVersion();
     }
 
     public String getSpecVendor() {
-        return specVendor;
+        return getPackageMetadataTable().getMainPackageMetadata().getSpecVendor();
     }
 
     public String getImplTitle() {
-        return implTitle;
+        return getPackageMetadataTable().getMainPackageMetadata().getImplTitle();
     }
 
     public String getImplVersion() {
-        return implVersion;
+        return getPackageMetadataTable().getMainPackageMetadata().getImplVersion();
     }
 
     public String getImplVendor() {
-        return implVendor;
+        return getPackageMetadataTable().getMainPackageMetadata().getImplVendor();
     }
 
     public boolean isSealed() {
-        return sealed;
+        return getPackageMetadataTable().getMainPackageMetadata().isSealed();
     }
 
     public SecureJarFileResourceLocator(final SecureFile secureJarFile) {
         this.secureJarFile = secureJarFile;
+        this.verificationMode = VerificationMode.EAGER;
         try {
             codeSourceURL = secureJarFile.getFile().toURI().toURL();
         } catch (MalformedURLException e) {
@@ -111,8 +156,23 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
     }
 
     public SecureJarFileResourceLocator(final SecureFile secureJarFile, final URL codeSourceURL) {
+        this(secureJarFile, codeSourceURL, VerificationMode.EAGER);
+    }
+
+    public SecureJarFileResourceLocator(final SecureFile secureJarFile, final URL codeSourceURL, final VerificationMode verificationMode) {
+        this(secureJarFile, codeSourceURL, verificationMode, null);
+    }
+
+    /**
+     * @param verificationCache if not null, signers of a jar already verified are read from it. Records are only written after a full verification, so not in
+     *            {@link VerificationMode#LAZY} mode.
+     */
+    public SecureJarFileResourceLocator(final SecureFile secureJarFile, final URL codeSourceURL, final VerificationMode verificationMode,
+            final SecureJarVerificationCache verificationCache) {
         this.secureJarFile = secureJarFile;
         this.codeSourceURL = codeSourceURL;
+        this.verificationMode = verificationMode;
+        this.verificationCache = verificationCache;
     }
 
     private AtomicReference<ZipFile> zipFileAtomicReference = new AtomicReference<ZipFile>(null);
@@ -128,7 +188,7 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
                 return zipFile;
             }
 
-            zipFile = new ZipFile(new SeekableByteChannel() {
+            zipFile = new ZipFile(new PositionalSeekableByteChannel() {
 
                 private SeekableInputStream sis = secureJarFile.getInputStream();
 
@@ -154,6 +214,11 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
                     return sis.read(dst);
                 }
 
+                @Override
+                public int read(final ByteBuffer dst, final long position) throws IOException {
+                    return secureJarFile.read(dst, position);
+                }
+
                 @Override
                 public void position(final long newPosition) throws IOException {
                     sis.seek(newPosition);
@@ -167,58 +232,98 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
 
             jarEntries.clear();
 
+            // resources by real entry name, jarEntries also contains unversioned names of multi release entries
+            Map<String, SecureJarEntryResource> resourceByEntryName = new HashMap<String, SecureJarEntryResource>();
+            List<ZipArchiveEntry> signatureEntries = new ArrayList<ZipArchiveEntry>();
             Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
             while (entries.hasMoreElements()) {
                 ZipArchiveEntry nextZipEntry = entries.nextElement();
-                jarEntries.put(nextZipEntry.getName(), new SecureJarEntryResource(this, nextZipEntry, nextZipEntry.getName(), codeSourceURL));
+                String name = nextZipEntry.getName();
+                if (resourceByEntryName.containsKey(name)) {
+                    // duplicate entry, zipFile.getEntry returns the first one
+                    continue;
+                }
+                SecureJarEntryResource secureJarEntryResource = new SecureJarEntryResource(this, nextZipEntry, name, codeSourceURL);
+                resourceByEntryName.put(name, secureJarEntryResource);
+                jarEntries.put(name, secureJarEntryResource);
+                if (isSignatureRelated(name)) {
+                    signatureEntries.add(nextZipEntry);
+                }
             }
 
-            Map<String, Integer> versionByName = new HashMap<String, Integer>();
-            JarInputStream jarInputStream = new JarInputStream(secureJarFile.getInputStream());
-            try {
-                manifest = jarInputStream.getManifest();
-                boolean multiReleaseJar = Boolean.parseBoolean(manifest.getMainAttributes().getValue(MULTI_RELEASE));
-                JarEntry nextJarEntry = jarInputStream.getNextJarEntry();
-                while (nextJarEntry != null) {
-                    String name = nextJarEntry.getName();
-                    SecureJarEntryResource secureJarEntryResource = jarEntries.get(name);
-                    if (versionByName.get(name) == null) {
-                        secureJarEntryResource.setJarEntry(nextJarEntry);
+            Manifest manifest = null;
+            byte[] manifestBytes = null;
+            ZipArchiveEntry manifestEntry = zipFile.getEntry(JarFile.MANIFEST_NAME);
+            if (manifestEntry != null) {
+                InputStream manifestInputStream = zipFile.getInputStream(manifestEntry);
+                try {
+                    manifestBytes = IOUtils.toByteArray(manifestInputStream);
+                } finally {
+                    manifestInputStream.close();
+                }
+                manifest = new Manifest(new ByteArrayInputStream(manifestBytes));
+            }
+            if (packageMetadataTable == null) {
+                packageMetadataTable = new PackageMetadataTable(manifest);
+            }
+
+            if (manifest != null && signatureEntries.size() != 0) {
+                byte[] archiveDigest = null;
+                Map<String, CodeSigner[]> cachedCodeSigners = null;
+                if (verificationCache != null) {
+                    archiveDigest = verificationCache.digest(secureJarFile);
+                    cachedCodeSigners = verificationCache.load(secureJarFile, archiveDigest);
+                }
+                if (cachedCodeSigners != null) {
+                    for (Entry<String, CodeSigner[]> entry : cachedCodeSigners.entrySet()) {
+                        SecureJarEntryResource secureJarEntryResource = resourceByEntryName.get(entry.getKey());
+                        if (secureJarEntryResource != null) {
+                            secureJarEntryResource.setVerifiedCodeSigners(entry.getValue());
+                        }
                     }
-                    if (multiReleaseJar && VERSION != -1 && !nextJarEntry.isDirectory() && name.startsWith(META_INF_VERSIONS)) {
-                        int sep = name.indexOf('/', META_INF_VERSIONS.length() + 1);
-                        if (sep != -1) {
-                            try {
-                                int localVersion = Integer.parseInt(name.substring(META_INF_VERSIONS.length(), sep));
-                                if (localVersion <= VERSION) {
-                                    Integer currentVersion = versionByName.get(name);
-                                    if (currentVersion == null || localVersion > currentVersion) {
-                                        name = name.substring(sep + 1);
-                                        versionByName.put(name, localVersion);
-                                        jarEntries.put(name, secureJarEntryResource);
-                                    }
-                                }
-                            } catch (NumberFormatException e) {
+                } else if (verificationMode != VerificationMode.LAZY
+                        || !LazyJarVerifier.prepare(zipFile, manifestBytes, manifest, manifestEntry, signatureEntries, resourceByEntryName)) {
+                    verify(zipFile, manifestEntry, signatureEntries, manifest, resourceByEntryName, verificationMode == VerificationMode.PARALLEL);
+                    if (verificationCache != null) {
+                        Map<String, CodeSigner[]> codeSignersByName = new HashMap<String, CodeSigner[]>();
+                        for (Entry<String, SecureJarEntryResource> entry : resourceByEntryName.entrySet()) {
+                            CodeSigner[] codeSigners = entry.getValue().getCodeSigners();
+                            if (codeSigners != null) {
+                                codeSignersByName.put(entry.getKey(), codeSigners);
                             }
                         }
+                        verificationCache.store(secureJarFile, archiveDigest, codeSignersByName);
                     }
-                    jarInputStream.closeEntry();
-                    nextJarEntry = jarInputStream.getNextJarEntry();
                 }
-            } finally {
-                jarInputStream.close();
             }
 
-            Attributes attr = manifest.getMainAttributes();
-            if (attr != null) {
-                specTitle = attr.getValue(Attributes.Name.SPECIFICATION_TITLE);
-                specVersion = attr.getValue(Attributes.Name.SPECIFICATION_VERSION);
-                specVendor = attr.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-                implTitle = attr.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-                implVersion = attr.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-                implVendor = attr.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-                if ("true".equalsIgnoreCase(attr.getValue(Attributes.Name.SEALED))) {
-                    this.sealed = true;
+            if (manifest != null && VERSION != -1 && Boolean.parseBoolean(manifest.getMainAttributes().getValue(MULTI_RELEASE))) {
+                Map<String, Integer> versionByName = new HashMap<String, Integer>();
+                for (SecureJarEntryResource secureJarEntryResource : resourceByEntryName.values()) {
+                    ZipArchiveEntry zipArchiveEntry = secureJarEntryResource.getZipArchiveEntry();
+                    String name = zipArchiveEntry.getName();
+                    if (zipArchiveEntry.isDirectory() || !name.startsWith(META_INF_VERSIONS)) {
+                        continue;
+                    }
+                    int sep = name.indexOf('/', META_INF_VERSIONS.length() + 1);
+                    if (sep == -1) {
+                        continue;
+                    }
+                    int localVersion;
+                    try {
+                        localVersion = Integer.parseInt(name.substring(META_INF_VERSIONS.length(), sep));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    if (localVersion > VERSION) {
+                        continue;
+                    }
+                    name = name.substring(sep + 1);
+                    Integer currentVersion = versionByName.get(name);
+                    if (currentVersion == null || localVersion > currentVersion) {
+                        versionByName.put(name, localVersion);
+                        jarEntries.put(name, secureJarEntryResource);
+                    }
                 }
             }
 
@@ -228,6 +333,82 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
         }
     }
 
+    static boolean isSignatureRelated(final String name) {
+        if (!name.startsWith(META_INF) || name.indexOf('/', META_INF.length()) != -1) {
+            return false;
+        }
+        String upperName = name.toUpperCase(Locale.ENGLISH);
+        return upperName.endsWith(".SF") || upperName.endsWith(".DSA") || upperName.endsWith(".RSA") || upperName.endsWith(".EC")
+                || upperName.startsWith(META_INF + "SIG-");
+    }
+
+    /**
+     * @return the manifest followed by the signature files then the signature blocks
+     */
+    static List<ZipArchiveEntry> getMetaEntries(final ZipArchiveEntry manifestEntry, final List<ZipArchiveEntry> signatureEntries) {
+        List<ZipArchiveEntry> metaEntries = new ArrayList<ZipArchiveEntry>();
+        metaEntries.add(manifestEntry);
+        for (ZipArchiveEntry signatureEntry : signatureEntries) {
+            if (signatureEntry.getName().toUpperCase(Locale.ENGLISH).endsWith(".SF")) {
+                metaEntries.add(signatureEntry);
+            }
+        }
+        for (ZipArchiveEntry signatureEntry : signatureEntries) {
+            if (!signatureEntry.getName().toUpperCase(Locale.ENGLISH).endsWith(".SF")) {
+                metaEntries.add(signatureEntry);
+            }
+        }
+        return metaEntries;
+    }
+
+    /**
+     * Each entry is read once by random access. The JarInputStream receives them as STORED entries so it only computes digests.
+     * @param verifiedEntries must start with {@link #getMetaEntries(ZipArchiveEntry, List)}
+     */
+    static void verifyEntries(final ZipFile zipFile, final List<ZipArchiveEntry> verifiedEntries, final Map<String, SecureJarEntryResource> resourceByEntryName)
+            throws IOException {
+        JarInputStream jarInputStream = new JarInputStream(new StoredEntriesInputStream(zipFile, verifiedEntries));
+        try {
+            JarEntry nextJarEntry = jarInputStream.getNextJarEntry();
+            while (nextJarEntry != null) {
+                // closeEntry reads to the end of the entry, which verifies its digest
+                jarInputStream.closeEntry();
+                SecureJarEntryResource secureJarEntryResource = resourceByEntryName.get(nextJarEntry.getName());
+                if (secureJarEntryResource != null) {
+                    secureJarEntryResource.setJarEntry(nextJarEntry);
+                }
+                nextJarEntry = jarInputStream.getNextJarEntry();
+            }
+        } finally {
+            jarInputStream.close();
+        }
+    }
+
+    /**
+     * Only the manifest, the signature files and the entries listed in the manifest are read.
+     */
+    private static void verify(final ZipFile zipFile, final ZipArchiveEntry manifestEntry, final List<ZipArchiveEntry> signatureEntries, final Manifest manifest,
+            final Map<String, SecureJarEntryResource> resourceByEntryName, final boolean parallel) throws IOException {
+        List<ZipArchiveEntry> verifiedEntries = new ArrayList<ZipArchiveEntry>();
+        for (String name : manifest.getEntries().keySet()) {
+            SecureJarEntryResource secureJarEntryResource = resourceByEntryName.get(name);
+            if (secureJarEntryResource == null) {
+                continue;
+            }
+            ZipArchiveEntry zipArchiveEntry = secureJarEntryResource.getZipArchiveEntry();
+            if (!zipArchiveEntry.isDirectory() && !isSignatureRelated(name) && !JarFile.MANIFEST_NAME.equals(name)) {
+                verifiedEntries.add(zipArchiveEntry);
+            }
+        }
+        List<ZipArchiveEntry> metaEntries = getMetaEntries(manifestEntry, signatureEntries);
+        if (parallel) {
+            ParallelJarVerifier.verify(zipFile, metaEntries, verifiedEntries, resourceByEntryName);
+        } else {
+            metaEntries.addAll(verifiedEntries);
+            verifyEntries(zipFile, metaEntries, resourceByEntryName);
+        }
+    }
+
     @Override
     public VestigeResource findResource(final String resourceName) {
         try {
@@ -241,96 +422,35 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
     }
 
     @Override
-    public PackageMetadata getPackageMetadata(final String pn) {
-        if (manifest == null) {
-            return this;
-        }
-        final Attributes attr = manifest.getAttributes(pn.replace('.', '/').concat("/"));
-        if (attr == null) {
-            return this;
+    public Set<String> getResourceDirectories() {
+        try {
+            openIfNot();
+        } catch (IOException e) {
+            return null;
         }
-        return new PackageMetadata() {
-
-            @Override
-            public boolean isSealed() {
-                String value = attr.getValue(Attributes.Name.SEALED);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.sealed;
-                }
-                if ("true".equalsIgnoreCase(value)) {
-                    return true;
-                }
-                return false;
-            }
-
-            @Override
-            public String getSpecVersion() {
-                String value = attr.getValue(Attributes.Name.SPECIFICATION_VERSION);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.specVersion;
-                }
-                return value;
-            }
-
-            @Override
-            public String getSpecVendor() {
-                String value = attr.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.specVendor;
-                }
-                return value;
-            }
-
-            @Override
-            public String getSpecTitle() {
-                String value = attr.getValue(Attributes.Name.SPECIFICATION_TITLE);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.specTitle;
-                }
-                return value;
-            }
-
-            @Override
-            public String getImplVersion() {
-                String value = attr.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.implVersion;
-                }
-                return value;
-            }
-
-            @Override
-            public String getImplVendor() {
-                String value = attr.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.implVendor;
+        Set<String> directories = new HashSet<String>();
+        synchronized (jarEntries) {
+            // multi release entries are already registered with their unversioned name
+            for (String name : jarEntries.keySet()) {
+                int lastIndexOf = name.lastIndexOf('/');
+                if (lastIndexOf == -1) {
+                    directories.add("");
+                } else {
+                    directories.add(name.substring(0, lastIndexOf));
                 }
-                return value;
             }
+        }
+        return directories;
+    }
 
-            @Override
-            public String getImplTitle() {
-                String value = attr.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-                if (value == null) {
-                    return SecureJarFileResourceLocator.this.implTitle;
-                }
-                return value;
-            }
-        };
+    @Override
+    public PackageMetadata getPackageMetadata(final String pn) {
+        return getPackageMetadataTable().getPackageMetadata(pn);
     }
 
     @Override
     public boolean isPackageSealed(final String packageName) {
-        String path = packageName.replace('.', '/').concat("/");
-        Attributes attr = manifest.getAttributes(path);
-        String sealed = null;
-        if (attr != null) {
-            sealed = attr.getValue(Attributes.Name.SEALED);
-        }
-        if (sealed == null) {
-            return this.sealed;
-        }
-        return "true".equalsIgnoreCase(sealed);
+        return getPackageMetadataTable().isPackageSealed(packageName);
     }
 
     @Override
@@ -352,4 +472,22 @@ public class SecureJarFileResourceLocator implements VestigeResourceLocator, Pac
         return zipFile.getInputStream(jarEntryResource.getZipArchiveEntry());
     }
 
+    public byte[] readFully(final SecureJarEntryResource jarEntryResource) throws IOException {
+        ZipFile zipFile = openIfNot();
+        return zipFile.readFully(jarEntryResource.getZipArchiveEntry());
+    }
+
+    public ByteBuffer getByteBuffer(final SecureJarEntryResource jarEntryResource) throws IOException {
+        ZipFile zipFile = openIfNot();
+        ZipArchiveEntry zipArchiveEntry = jarEntryResource.getZipArchiveEntry();
+        if (zipArchiveEntry.getSize() > Integer.MAX_VALUE) {
+            return null;
+        }
+        long dataOffset = zipFile.getStoredDataOffset(zipArchiveEntry);
+        if (dataOffset == -1) {
+            return null;
+        }
+        return secureJarFile.getByteBuffer(dataOffset, (int) zipArchiveEntry.getSize());
+    }
+
 }
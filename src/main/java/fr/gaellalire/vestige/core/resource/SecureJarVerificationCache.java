@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.CodeSigner;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Timestamp;
+import java.security.cert.CertPath;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * On disk cache of the signers of verified jars, so a jar already verified by a previous JVM is not verified again. A record is found by the SHA-256 of the whole locked
+ * archive and must match its size and last modification time. Records are authenticated with HMAC-SHA256, the key must be kept out of reach of whoever can write in the
+ * directory.
+ * @author Gael Lalire
+ */
+public final class SecureJarVerificationCache {
+
+    private static final int MAGIC = 0x56564331;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final String SUFFIX = ".vvc";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private File directory;
+
+    private SecretKeySpec key;
+
+    public SecureJarVerificationCache(final File directory, final byte[] key) {
+        this.directory = directory;
+        this.key = new SecretKeySpec(key.clone(), MAC_ALGORITHM);
+    }
+
+    /**
+     * Read the whole file, locked content is read so the digest designates what will be loaded.
+     */
+    byte[] digest(final SecureFile secureFile) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(DIGEST_ALGORITHM + " not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        int read = secureFile.read(buffer, position);
+        while (read != -1) {
+            position += read;
+            buffer.flip();
+            messageDigest.update(buffer);
+            buffer.clear();
+            read = secureFile.read(buffer, position);
+        }
+        return messageDigest.digest();
+    }
+
+    private File getRecordFile(final byte[] digest) {
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+        }
+        return new File(directory, new String(chars) + SUFFIX);
+    }
+
+    private byte[] mac(final byte[] data, final int offset, final int length) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(key);
+        mac.update(data, offset, length);
+        return mac.doFinal();
+    }
+
+    /**
+     * @return signers by entry name, entries which are not signed are absent, null if there is no valid record
+     */
+    Map<String, CodeSigner[]> load(final SecureFile secureFile, final byte[] digest) {
+        File recordFile = getRecordFile(digest);
+        long length = recordFile.length();
+        if (length == 0 || length > MAX_RECORD_SIZE) {
+            return null;
+        }
+        try {
+            byte[] record = new byte[(int) length];
+            DataInputStream fileInputStream = new DataInputStream(new FileInputStream(recordFile));
+            try {
+                fileInputStream.readFully(record);
+            } finally {
+                fileInputStream.close();
+            }
+            int macLength = Mac.getInstance(MAC_ALGORITHM).getMacLength();
+            if (record.length < macLength || !MessageDigest.isEqual(mac(record, macLength, record.length - macLength), Arrays.copyOf(record, macLength))) {
+                return null;
+            }
+            DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(record, macLength, record.length - macLength));
+            if (dataInputStream.readInt() != MAGIC || dataInputStream.readLong() != secureFile.getSize()
+                    || dataInputStream.readLong() != secureFile.getFile().lastModified()) {
+                return null;
+            }
+            byte[] recordDigest = new byte[dataInputStream.readInt()];
+            dataInputStream.readFully(recordDigest);
+            if (!MessageDigest.isEqual(recordDigest, digest)) {
+                return null;
+            }
+            CertificateFactory certificateFactory = null;
+            String certificateFactoryType = null;
+            int signerArrayCount = dataInputStream.readInt();
+            List<CodeSigner[]> signerArrays = new ArrayList<CodeSigner[]>(signerArrayCount);
+            for (int i = 0; i < signerArrayCount; i++) {
+                CodeSigner[] codeSigners = new CodeSigner[dataInputStream.readInt()];
+                for (int j = 0; j < codeSigners.length; j++) {
+                    CertPath[] certPaths = new CertPath[2];
+                    for (int k = 0; k < 2; k++) {
+                        if (k == 1 && !dataInputStream.readBoolean()) {
+                            break;
+                        }
+                        String type = dataInputStream.readUTF();
+                        if (!type.equals(certificateFactoryType)) {
+                            certificateFactory = CertificateFactory.getInstance(type);
+                            certificateFactoryType = type;
+                        }
+                        byte[] encoded = new byte[dataInputStream.readInt()];
+                        dataInputStream.readFully(encoded);
+                        certPaths[k] = certificateFactory.generateCertPath(new ByteArrayInputStream(encoded));
+                    }
+                    Timestamp timestamp = null;
+                    if (certPaths[1] != null) {
+                        timestamp = new Timestamp(new Date(dataInputStream.readLong()), certPaths[1]);
+                    }
+                    codeSigners[j] = new CodeSigner(certPaths[0], timestamp);
+                }
+                signerArrays.add(codeSigners);
+            }
+            int entryCount = dataInputStream.readInt();
+            Map<String, CodeSigner[]> codeSignersByName = new HashMap<String, CodeSigner[]>(entryCount * 4 / 3 + 1);
+            for (int i = 0; i < entryCount; i++) {
+                String name = dataInputStream.readUTF();
+                codeSignersByName.put(name, signerArrays.get(dataInputStream.readInt()));
+            }
+            return codeSignersByName;
+        } catch (IOException e) {
+            return null;
+        } catch (GeneralSecurityException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeCertPath(final DataOutputStream dataOutputStream, final CertPath certPath) throws IOException, GeneralSecurityException {
+        dataOutputStream.writeUTF(certPath.getType());
+        byte[] encoded = certPath.getEncoded();
+        dataOutputStream.writeInt(encoded.length);
+        dataOutputStream.write(encoded);
+    }
+
+    /**
+     * Failures are ignored, the jar will be verified again next time.
+     */
+    void store(final SecureFile secureFile, final byte[] digest, final Map<String, CodeSigner[]> codeSignersByName) {
+        File tempFile = null;
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+            dataOutputStream.writeInt(MAGIC);
+            dataOutputStream.writeLong(secureFile.getSize());
+            dataOutputStream.writeLong(secureFile.getFile().lastModified());
+            dataOutputStream.writeInt(digest.length);
+            dataOutputStream.write(digest);
+
+            // entries signed by the same signers share their array
+            Map<List<CodeSigner>, Integer> signerArrayIndexes = new HashMap<List<CodeSigner>, Integer>();
+            List<CodeSigner[]> signerArrays = new ArrayList<CodeSigner[]>();
+            for (CodeSigner[] codeSigners : codeSignersByName.values()) {
+                List<CodeSigner> signerList = Arrays.asList(codeSigners);
+                if (!signerArrayIndexes.containsKey(signerList)) {
+                    signerArrayIndexes.put(signerList, signerArrays.size());
+                    signerArrays.add(codeSigners);
+                }
+            }
+            dataOutputStream.writeInt(signerArrays.size());
+            for (CodeSigner[] codeSigners : signerArrays) {
+                dataOutputStream.writeInt(codeSigners.length);
+                for (CodeSigner codeSigner : codeSigners) {
+                    writeCertPath(dataOutputStream, codeSigner.getSignerCertPath());
+                    Timestamp timestamp = codeSigner.getTimestamp();
+                    dataOutputStream.writeBoolean(timestamp != null);
+                    if (timestamp != null) {
+                        writeCertPath(dataOutputStream, timestamp.getSignerCertPath());
+                        dataOutputStream.writeLong(timestamp.getTimestamp().getTime());
+                    }
+                }
+            }
+            dataOutputStream.writeInt(codeSignersByName.size());
+            for (Entry<String, CodeSigner[]> entry : codeSignersByName.entrySet()) {
+                dataOutputStream.writeUTF(entry.getKey());
+                dataOutputStream.writeInt(signerArrayIndexes.get(Arrays.asList(entry.getValue())));
+            }
+            dataOutputStream.flush();
+            byte[] payload = byteArrayOutputStream.toByteArray();
+
+            // written aside then renamed, so a concurrent reader never sees a partial record
+            tempFile = File.createTempFile("record", ".tmp", directory);
+            FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+            try {
+                fileOutputStream.write(mac(payload, 0, payload.length));
+                fileOutputStream.write(payload);
+            } finally {
+                fileOutputStream.close();
+            }
+            File recordFile = getRecordFile(digest);
+            if (!tempFile.renameTo(recordFile)) {
+                recordFile.delete();
+                if (!tempFile.renameTo(recordFile)) {
+                    return;
+                }
+            }
+            tempFile = null;
+        } catch (IOException e) {
+            // ignore
+        } catch (GeneralSecurityException e) {
+            // ignore
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+}
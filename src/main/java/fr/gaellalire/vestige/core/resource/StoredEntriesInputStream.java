@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
+import fr.gaellalire.vestige.core.zip.ZipArchiveEntry;
+import fr.gaellalire.vestige.core.zip.ZipEightByteInteger;
+import fr.gaellalire.vestige.core.zip.ZipFile;
+import fr.gaellalire.vestige.core.zip.ZipLong;
+import fr.gaellalire.vestige.core.zip.ZipShort;
+
+/**
+ * Sequential zip stream made of selected entries of a {@link ZipFile}. Entries are read by random access and written as STORED with the sizes and CRC of the central
+ * directory, so a {@link java.util.jar.JarInputStream} can verify them without reading the rest of the archive.
+ * @author Gael Lalire
+ */
+class StoredEntriesInputStream extends InputStream {
+
+    private static final int LFH_LENGTH = 30;
+
+    private static final int ZIP64_EXTRA_LENGTH = 20;
+
+    private static final int UTF8_FLAG = 1 << 11;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private ZipFile zipFile;
+
+    private Iterator<ZipArchiveEntry> entryIterator;
+
+    private byte[] header;
+
+    private int headerPosition;
+
+    private InputStream entryInputStream;
+
+    private byte[] singleByte = new byte[1];
+
+    StoredEntriesInputStream(final ZipFile zipFile, final List<ZipArchiveEntry> entries) {
+        this.zipFile = zipFile;
+        this.entryIterator = entries.iterator();
+    }
+
+    private static byte[] createLocalFileHeader(final ZipArchiveEntry entry) throws IOException {
+        byte[] name = entry.getName().getBytes("UTF-8");
+        long size = entry.getSize();
+        boolean zip64 = size >= ZIP64_MAGIC;
+        byte[] header = new byte[LFH_LENGTH + name.length + (zip64 ? ZIP64_EXTRA_LENGTH : 0)];
+        ZipLong.putLong(ZipLong.LFH_SIG.getValue(), header, 0);
+        ZipShort.putShort(zip64 ? 45 : 10, header, 4);
+        ZipShort.putShort(UTF8_FLAG, header, 6);
+        // method STORED, time and date 0
+        ZipLong.putLong(entry.getCrc(), header, 14);
+        if (zip64) {
+            ZipLong.putLong(ZIP64_MAGIC, header, 18);
+            ZipLong.putLong(ZIP64_MAGIC, header, 22);
+        } else {
+            ZipLong.putLong(size, header, 18);
+            ZipLong.putLong(size, header, 22);
+        }
+        ZipShort.putShort(name.length, header, 26);
+        int offset = LFH_LENGTH;
+        System.arraycopy(name, 0, header, offset, name.length);
+        offset += name.length;
+        if (zip64) {
+            ZipShort.putShort(ZIP64_EXTRA_LENGTH - 4, header, 28);
+            ZipShort.putShort(1, header, offset);
+            ZipShort.putShort(ZIP64_EXTRA_LENGTH - 4, header, offset + 2);
+            System.arraycopy(ZipEightByteInteger.getBytes(size), 0, header, offset + 4, 8);
+            System.arraycopy(ZipEightByteInteger.getBytes(size), 0, header, offset + 12, 8);
+        }
+        return header;
+    }
+
+    /**
+     * @return false if there is no more entries
+     */
+    private boolean nextEntry() throws IOException {
+        if (entryInputStream != null) {
+            entryInputStream.close();
+            entryInputStream = null;
+        }
+        if (!entryIterator.hasNext()) {
+            return false;
+        }
+        ZipArchiveEntry entry = entryIterator.next();
+        header = createLocalFileHeader(entry);
+        headerPosition = 0;
+        entryInputStream = zipFile.getInputStream(entry);
+        return true;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (header != null) {
+                int read = Math.min(len, header.length - headerPosition);
+                System.arraycopy(header, headerPosition, b, off, read);
+                headerPosition += read;
+                if (headerPosition == header.length) {
+                    header = null;
+                }
+                return read;
+            }
+            if (entryInputStream != null) {
+                int read = entryInputStream.read(b, off, len);
+                if (read != -1) {
+                    return read;
+                }
+            }
+            if (!nextEntry()) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(singleByte, 0, 1);
+        while (read == 0) {
+            read = read(singleByte, 0, 1);
+        }
+        if (read == -1) {
+            return -1;
+        }
+        return singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (entryInputStream != null) {
+            entryInputStream.close();
+            entryInputStream = null;
+        }
+    }
+
+}
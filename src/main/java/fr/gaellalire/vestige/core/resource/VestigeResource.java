@@ -19,6 +19,7 @@ package fr.gaellalire.vestige.core.resource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.CodeSigner;
 
 /**
@@ -30,6 +31,18 @@ public interface VestigeResource {
 
     long getSize();
 
+    /**
+     * Reads the whole resource in an array of its exact size. Like reading {@link #getInputStream()} to the end, it makes {@link #getCodeSigners()} available.
+     */
+    byte[] readFully() throws IOException;
+
+    /**
+     * Gives the content of an uncompressed resource which is already in memory, like a stored entry of a mapped archive. Like reading {@link #getInputStream()} to the end,
+     * it makes {@link #getCodeSigners()} available.
+     * @return a read only view of the resource, or null if the content is not available without copy
+     */
+    ByteBuffer getByteBuffer() throws IOException;
+
     String getName();
 
     URL getCodeSourceURL();
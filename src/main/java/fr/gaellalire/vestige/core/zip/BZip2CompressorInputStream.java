@@ -49,6 +49,15 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
 
     private final CRC crc = new CRC();
 
+    /**
+     * Destination of the current bulk read, its bytes from crcOffset to readOffset are not yet in the CRC.
+     */
+    private byte[] crcBuffer;
+
+    private int crcOffset;
+
+    private int readOffset;
+
     private int nInUse;
 
     private BitInputStream bin;
@@ -120,7 +129,14 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
      * @throws IOException if {@code in == null}, the stream content is malformed, or an I/O error occurs.
      */
     public BZip2CompressorInputStream(final InputStream in, final boolean decompressConcatenated) throws IOException {
-        this.bin = new BitInputStream(in == System.in ? new CloseShieldFilterInputStream(in) : in, ByteOrder.BIG_ENDIAN);
+        this(in, decompressConcatenated, 0);
+    }
+
+    /**
+     * @param bufferSize size of the blocks read from the stream, which must end with the compressed data
+     */
+    BZip2CompressorInputStream(final InputStream in, final boolean decompressConcatenated, final int bufferSize) throws IOException {
+        this.bin = new BitInputStream(in == System.in ? new CloseShieldFilterInputStream(in) : in, ByteOrder.BIG_ENDIAN, bufferSize);
         this.decompressConcatenated = decompressConcatenated;
 
         init(true);
@@ -131,6 +147,9 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
     public int read() throws IOException {
         if (this.bin != null) {
             final int r = read0();
+            if (r >= 0) {
+                this.crc.updateCRC(r);
+            }
             count(r < 0 ? -1 : 1);
             return r;
         }
@@ -160,14 +179,22 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
         }
 
         final int hi = offs + len;
-        int destOffs = offs;
+        this.crcBuffer = dest;
+        this.crcOffset = offs;
+        this.readOffset = offs;
         int b;
-        while (destOffs < hi && ((b = read0()) >= 0)) {
-            dest[destOffs++] = (byte) b;
-            count(1);
+        try {
+            while (this.readOffset < hi && ((b = read0()) >= 0)) {
+                dest[this.readOffset++] = (byte) b;
+            }
+            updatePendingCRC();
+        } finally {
+            this.crcBuffer = null;
         }
+        final int read = this.readOffset - offs;
+        count(read);
 
-        return (destOffs == offs) ? -1 : (destOffs - offs);
+        return (read == 0) ? -1 : read;
     }
 
     /**
@@ -319,7 +346,18 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
         this.currentState = START_BLOCK_STATE;
     }
 
+    /**
+     * The CRC of bytes returned by a bulk read is computed in one pass when the read ends or when the block ends.
+     */
+    private void updatePendingCRC() {
+        if (this.crcBuffer != null) {
+            this.crc.updateCRC(this.crcBuffer, this.crcOffset, this.readOffset - this.crcOffset);
+            this.crcOffset = this.readOffset;
+        }
+    }
+
     private void endBlock() throws IOException {
+        updatePendingCRC();
         this.computedBlockCRC = this.crc.getFinalCRC();
 
         // A bad CRC is considered a fatal error.
@@ -775,7 +813,6 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
             this.su_ch2 = su_ch2Shadow ^= (this.su_rNToGo == 1) ? 1 : 0;
             this.su_i2++;
             this.currentState = RAND_PART_B_STATE;
-            this.crc.updateCRC(su_ch2Shadow);
             return su_ch2Shadow;
         }
         endBlock();
@@ -792,7 +829,6 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
             this.su_tPos = this.data.tt[this.su_tPos];
             this.su_i2++;
             this.currentState = NO_RAND_PART_B_STATE;
-            this.crc.updateCRC(su_ch2Shadow);
             return su_ch2Shadow;
         }
         this.currentState = NO_RAND_PART_A_STATE;
@@ -832,7 +868,6 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
 
     private int setupRandPartC() throws IOException {
         if (this.su_j2 < this.su_z) {
-            this.crc.updateCRC(this.su_ch2);
             this.su_j2++;
             return this.su_ch2;
         }
@@ -860,7 +895,6 @@ public class BZip2CompressorInputStream extends CompressorInputStream implements
     private int setupNoRandPartC() throws IOException {
         if (this.su_j2 < this.su_z) {
             final int su_ch2Shadow = this.su_ch2;
-            this.crc.updateCRC(su_ch2Shadow);
             this.su_j2++;
             this.currentState = NO_RAND_PART_C_STATE;
             return su_ch2Shadow;
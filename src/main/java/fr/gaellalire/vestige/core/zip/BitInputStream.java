@@ -21,6 +21,7 @@ package fr.gaellalire.vestige.core.zip;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -31,6 +32,13 @@ import java.nio.ByteOrder;
 public class BitInputStream implements Closeable {
     private static final int MAXIMUM_CACHE_SIZE = 63; // bits in long minus sign bit
 
+    /**
+     * Size of the block buffer used by the decoders of {@link ZipFile}.
+     */
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int LONG_BYTES = 8;
+
     private static final long[] MASKS = new long[MAXIMUM_CACHE_SIZE + 1];
 
     static {
@@ -47,14 +55,40 @@ public class BitInputStream implements Closeable {
 
     private int bitsCachedSize = 0;
 
+    private final byte[] buffer;
+
+    private final ByteBuffer bufferView;
+
+    private int bufferPosition;
+
+    private int bufferLimit;
+
     /**
-     * Constructor taking an InputStream and its bit arrangement.
+     * Constructor taking an InputStream and its bit arrangement. Only the bytes needed by the requested bits are read from the InputStream.
      * @param in the InputStream
      * @param byteOrder the bit arrangement across byte boundaries, either BIG_ENDIAN (aaaaabbb bb000000) or LITTLE_ENDIAN (bbbaaaaa 000000bb)
      */
     public BitInputStream(final InputStream in, final ByteOrder byteOrder) {
+        this(in, byteOrder, 0);
+    }
+
+    /**
+     * Constructor reading the InputStream by blocks, the cache is then refilled a word at a time. The InputStream may be read beyond the requested bits, so it should end
+     * with the bit stream.
+     * @param in the InputStream
+     * @param byteOrder the bit arrangement across byte boundaries, either BIG_ENDIAN (aaaaabbb bb000000) or LITTLE_ENDIAN (bbbaaaaa 000000bb)
+     * @param bufferSize size of the blocks, 0 to read only the needed bytes
+     */
+    public BitInputStream(final InputStream in, final ByteOrder byteOrder, final int bufferSize) {
         this.in = new CountingInputStream(in);
         this.byteOrder = byteOrder;
+        if (bufferSize > 0) {
+            buffer = new byte[Math.max(bufferSize, LONG_BYTES)];
+            bufferView = ByteBuffer.wrap(buffer).order(byteOrder);
+        } else {
+            buffer = null;
+            bufferView = null;
+        }
     }
 
     @Override
@@ -63,9 +97,14 @@ public class BitInputStream implements Closeable {
     }
 
     /**
-     * Clears the cache of bits that have been read from the underlying stream but not yet provided via {@link #readBits}.
+     * Clears the cache of bits that have been read from the underlying stream but not yet provided via {@link #readBits}. When reading by blocks, only the bits of the
+     * current byte are dropped: the following bytes are still to be read.
      */
     public void clearBitCache() {
+        if (buffer != null) {
+            alignWithByteBoundary();
+            return;
+        }
         bitsCached = 0;
         bitsCachedSize = 0;
     }
@@ -106,7 +145,7 @@ public class BitInputStream implements Closeable {
      * @since 1.16
      */
     public long bitsAvailable() throws IOException {
-        return bitsCachedSize + ((long) Byte.SIZE) * in.available();
+        return bitsCachedSize + ((long) Byte.SIZE) * (bufferLimit - bufferPosition + in.available());
     }
 
     /**
@@ -129,7 +168,71 @@ public class BitInputStream implements Closeable {
      * @since 1.17
      */
     public long getBytesRead() {
-        return in.getBytesRead();
+        return in.getBytesRead() - (bufferLimit - bufferPosition);
+    }
+
+    /**
+     * Reads whole bytes once the cache is empty, for example after {@link #alignWithByteBoundary()} and the consumption of cached bytes.
+     * @return the number of bytes read, -1 at the end of the stream
+     */
+    int readBytes(final byte[] b, final int off, final int len) throws IOException {
+        if (buffer == null) {
+            return in.read(b, off, len);
+        }
+        if (bufferPosition == bufferLimit && !fillBuffer()) {
+            return -1;
+        }
+        int read = Math.min(len, bufferLimit - bufferPosition);
+        System.arraycopy(buffer, bufferPosition, b, off, read);
+        bufferPosition += read;
+        return read;
+    }
+
+    /**
+     * @return false at the end of the stream
+     */
+    private boolean fillBuffer() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        while (read == 0) {
+            read = in.read(buffer, 0, buffer.length);
+        }
+        if (read == -1) {
+            bufferPosition = 0;
+            bufferLimit = 0;
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = read;
+        return true;
+    }
+
+    private long nextByte() throws IOException {
+        if (buffer == null) {
+            return in.read();
+        }
+        if (bufferPosition == bufferLimit && !fillBuffer()) {
+            return -1;
+        }
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    /**
+     * Returns the next bits without consuming them, for a LITTLE_ENDIAN stream. Near the end of the underlying stream fewer bits may be cached, missing bits are zero.
+     * @param count the number of bits to peek, must not be bigger than 56.
+     * @return the bits, check {@link #bitsCached()} to know how many are real
+     * @throws IOException on error
+     */
+    long peekBits(final int count) throws IOException {
+        ensureCache(count);
+        return bitsCached & MASKS[Math.min(count, bitsCachedSize)];
+    }
+
+    /**
+     * Consumes bits previously returned by {@link #peekBits(int)}.
+     * @param count the number of bits to skip, must not be bigger than {@link #bitsCached()}.
+     */
+    void skipCachedBits(final int count) {
+        readCachedBits(count);
     }
 
     private long processBitsGreater57(final int count) throws IOException {
@@ -140,7 +243,7 @@ public class BitInputStream implements Closeable {
         // bitsCachedSize >= 57 and left-shifting it 8 bits would cause an overflow
         int bitsToAddCount = count - bitsCachedSize;
         overflowBits = Byte.SIZE - bitsToAddCount;
-        final long nextByte = in.read();
+        final long nextByte = nextByte();
         if (nextByte < 0) {
             return nextByte;
         }
@@ -179,6 +282,9 @@ public class BitInputStream implements Closeable {
      * @throws IOException
      */
     private boolean ensureCache(final int count) throws IOException {
+        if (buffer != null) {
+            return ensureCacheFromBuffer(count);
+        }
         while (bitsCachedSize < count && bitsCachedSize < 57) {
             final long nextByte = in.read();
             if (nextByte < 0) {
@@ -195,4 +301,50 @@ public class BitInputStream implements Closeable {
         return false;
     }
 
+    /**
+     * Fills the cache with as many whole bytes as it can hold, with a single read of the buffer when 8 bytes are available.
+     * @return true, when EOF
+     */
+    private boolean ensureCacheFromBuffer(final int count) throws IOException {
+        while (bitsCachedSize < count && bitsCachedSize < 57) {
+            int available = bufferLimit - bufferPosition;
+            if (available == 0) {
+                if (!fillBuffer()) {
+                    return true;
+                }
+                available = bufferLimit;
+            }
+            int byteCount = (Long.SIZE - bitsCachedSize) >>> 3;
+            if (available >= LONG_BYTES) {
+                long word = bufferView.getLong(bufferPosition);
+                int bitCount = byteCount << 3;
+                if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
+                    if (bitCount != Long.SIZE) {
+                        word &= (1L << bitCount) - 1;
+                    }
+                    bitsCached |= word << bitsCachedSize;
+                } else if (bitCount == Long.SIZE) {
+                    bitsCached = word;
+                } else {
+                    bitsCached = (bitsCached << bitCount) | (word >>> (Long.SIZE - bitCount));
+                }
+                bufferPosition += byteCount;
+                bitsCachedSize += bitCount;
+            } else {
+                byteCount = Math.min(byteCount, available);
+                for (int i = 0; i < byteCount; i++) {
+                    final long nextByte = buffer[bufferPosition++] & 0xFF;
+                    if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
+                        bitsCached |= (nextByte << bitsCachedSize);
+                    } else {
+                        bitsCached <<= Byte.SIZE;
+                        bitsCached |= nextByte;
+                    }
+                    bitsCachedSize += Byte.SIZE;
+                }
+            }
+        }
+        return false;
+    }
+
 }
@@ -30,7 +30,11 @@ import java.nio.ByteOrder;
 class BitStream extends BitInputStream {
 
     BitStream(final InputStream in) {
-        super(in, ByteOrder.LITTLE_ENDIAN);
+        this(in, 0);
+    }
+
+    BitStream(final InputStream in, final int bufferSize) {
+        super(in, ByteOrder.LITTLE_ENDIAN, bufferSize);
     }
 
     /**
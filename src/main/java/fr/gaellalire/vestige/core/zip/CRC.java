@@ -43,6 +43,25 @@ class CRC {
             0xeee2ed18, 0xf0a5bd1d, 0xf464a0aa, 0xf9278673, 0xfde69bc4, 0x89b8fd09, 0x8d79e0be, 0x803ac667, 0x84fbdbd0, 0x9abc8bd5, 0x9e7d9662, 0x933eb0bb, 0x97ffad0c, 0xafb010b1,
             0xab710d06, 0xa6322bdf, 0xa2f33668, 0xbcb4666d, 0xb8757bda, 0xb5365d03, 0xb1f740b4};
 
+    private static final int SLICE_COUNT = 8;
+
+    /**
+     * Slicing-by-8 tables, slices[k][n] is the CRC of n followed by k zero bytes and slices[0] is crc32Table.
+     */
+    private static final int[][] SLICES = new int[SLICE_COUNT][];
+
+    static {
+        SLICES[0] = crc32Table;
+        for (int k = 1; k < SLICE_COUNT; k++) {
+            int[] previous = SLICES[k - 1];
+            int[] slice = new int[256];
+            for (int n = 0; n < 256; n++) {
+                slice[n] = (previous[n] << 8) ^ crc32Table[previous[n] >>> 24];
+            }
+            SLICES[k] = slice;
+        }
+    }
+
     CRC() {
         initialiseCRC();
     }
@@ -80,5 +99,33 @@ class CRC {
         this.globalCrc = globalCrcShadow;
     }
 
+    /**
+     * Updates the CRC with len bytes of b, eight bytes at a time.
+     */
+    void updateCRC(final byte[] b, final int off, final int len) {
+        final int[] t0 = SLICES[0];
+        final int[] t1 = SLICES[1];
+        final int[] t2 = SLICES[2];
+        final int[] t3 = SLICES[3];
+        final int[] t4 = SLICES[4];
+        final int[] t5 = SLICES[5];
+        final int[] t6 = SLICES[6];
+        final int[] t7 = SLICES[7];
+        int globalCrcShadow = this.globalCrc;
+        int i = off;
+        final int end = off + len;
+        final int sliceEnd = end - SLICE_COUNT;
+        while (i <= sliceEnd) {
+            final int high = globalCrcShadow ^ ((b[i] & 0xff) << 24 | (b[i + 1] & 0xff) << 16 | (b[i + 2] & 0xff) << 8 | (b[i + 3] & 0xff));
+            globalCrcShadow = t7[high >>> 24] ^ t6[(high >>> 16) & 0xff] ^ t5[(high >>> 8) & 0xff] ^ t4[high & 0xff] ^ t3[b[i + 4] & 0xff] ^ t2[b[i + 5] & 0xff]
+                    ^ t1[b[i + 6] & 0xff] ^ t0[b[i + 7] & 0xff];
+            i += SLICE_COUNT;
+        }
+        while (i < end) {
+            globalCrcShadow = (globalCrcShadow << 8) ^ t0[(globalCrcShadow >>> 24) ^ (b[i++] & 0xff)];
+        }
+        this.globalCrc = globalCrcShadow;
+    }
+
     private int globalCrc;
 }
\ No newline at end of file
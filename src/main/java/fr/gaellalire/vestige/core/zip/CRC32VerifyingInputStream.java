@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * Checks the size and the CRC-32 of an entry once its content is fully read. The checksum is updated with whole reads, so the intrinsic implementation of {@link CRC32} is
+ * used.
+ * @author Gael Lalire
+ */
+class CRC32VerifyingInputStream extends FilterInputStream implements InputStreamStatistics {
+
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final CRC32 crc32 = new CRC32();
+
+    private final ZipArchiveEntry entry;
+
+    private long count;
+
+    private boolean verified;
+
+    private byte[] singleByte;
+
+    CRC32VerifyingInputStream(final InputStream in, final ZipArchiveEntry entry) {
+        super(in);
+        this.entry = entry;
+    }
+
+    static void verify(final ZipArchiveEntry entry, final long size, final long crc) throws ZipException {
+        if (size != entry.getSize()) {
+            throw new ZipException("Bad size for entry " + entry.getName() + ", expected " + entry.getSize() + " but got " + size);
+        }
+        if (crc != entry.getCrc()) {
+            throw new ZipException("Bad CRC checksum for entry " + entry.getName() + ", expected " + Long.toHexString(entry.getCrc()) + " but got " + Long.toHexString(crc));
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (singleByte == null) {
+            singleByte = new byte[1];
+        }
+        int read = read(singleByte, 0, 1);
+        while (read == 0) {
+            read = read(singleByte, 0, 1);
+        }
+        if (read == -1) {
+            return -1;
+        }
+        return singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int read = in.read(b, off, len);
+        if (read == -1) {
+            if (!verified) {
+                verified = true;
+                verify(entry, count, crc32.getValue());
+            }
+            return -1;
+        }
+        crc32.update(b, off, read);
+        count += read;
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        // skipped bytes are part of the checksum
+        byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, Math.max(n, 1))];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public long getCompressedCount() {
+        return ((InputStreamStatistics) in).getCompressedCount();
+    }
+
+    @Override
+    public long getUncompressedCount() {
+        return ((InputStreamStatistics) in).getUncompressedCount();
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Raw central directory bytes with an open addressing table of its records by name hash. Entries are materialized by {@link ZipFile} on lookup, so the heap cost is the
+ * raw record plus 16 bytes per entry.
+ * @author Gael Lalire
+ */
+final class CentralDirectoryIndex {
+
+    private final ByteBuffer centralDirectory;
+
+    /**
+     * Offset of each record in central directory order.
+     */
+    private final IntBuffer recordOffsets;
+
+    private final IntBuffer nameHashes;
+
+    /**
+     * Entry index plus one, 0 for a free slot. Linear probing keeps entries of the same name in central directory order.
+     */
+    private final IntBuffer table;
+
+    private final int mask;
+
+    CentralDirectoryIndex(final ByteBuffer centralDirectory, final int[] recordOffsets, final int[] nameHashes) {
+        this.centralDirectory = centralDirectory;
+        this.recordOffsets = IntBuffer.wrap(recordOffsets);
+        this.nameHashes = IntBuffer.wrap(nameHashes);
+        int capacity = getTableCapacity(recordOffsets.length);
+        int[] table = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < recordOffsets.length; i++) {
+            int slot = spread(nameHashes[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        this.table = IntBuffer.wrap(table);
+    }
+
+    /**
+     * Index whose content was built previously, see {@link CentralDirectoryIndexFile}.
+     */
+    CentralDirectoryIndex(final ByteBuffer centralDirectory, final IntBuffer recordOffsets, final IntBuffer nameHashes, final IntBuffer table) {
+        this.centralDirectory = centralDirectory;
+        this.recordOffsets = recordOffsets;
+        this.nameHashes = nameHashes;
+        this.table = table;
+        mask = table.capacity() - 1;
+    }
+
+    public static int getTableCapacity(final int size) {
+        return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    public int size() {
+        return recordOffsets.capacity();
+    }
+
+    public int getRecordOffset(final int index) {
+        return recordOffsets.get(index);
+    }
+
+    public int getNameHash(final int index) {
+        return nameHashes.get(index);
+    }
+
+    public int getTableCapacity() {
+        return table.capacity();
+    }
+
+    public int getTableValue(final int slot) {
+        return table.get(slot);
+    }
+
+    /**
+     * @return a view with its own position, the content is shared
+     */
+    public ByteBuffer getCentralDirectory() {
+        return centralDirectory.duplicate();
+    }
+
+    public int firstSlot(final int nameHash) {
+        return spread(nameHash) & mask;
+    }
+
+    public int nextSlot(final int slot) {
+        return (slot + 1) & mask;
+    }
+
+    /**
+     * @return the index of the entry in the slot, -1 for a free slot which ends the probe sequence
+     */
+    public int getEntryIndex(final int slot) {
+        return table.get(slot) - 1;
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Sidecar file of a {@link CentralDirectoryIndex}: a header identifying the archive, the record offsets, the name hashes, the hash table and the raw central directory. It is
+ * memory mapped, so an index is loaded without parsing the archive.
+ * @author Gael Lalire
+ */
+final class CentralDirectoryIndexFile {
+
+    private static final int MAGIC = 0x565A4931;
+
+    private static final int INT_SIZE = 4;
+
+    /**
+     * Magic, archive size, last modified, end records CRC, central directory offset, central directory length, unicode extra fields flag, entry count, table capacity,
+     * encoding length.
+     */
+    private static final int HEADER_LENGTH = INT_SIZE + 8 + 8 + 8 + 8 + INT_SIZE + INT_SIZE + INT_SIZE + INT_SIZE + INT_SIZE;
+
+    /**
+     * Length of a central directory record without file name, extra field and comment, signature included.
+     */
+    private static final int RECORD_FIXED_LENGTH = 46;
+
+    /**
+     * Offset of the file name length in a central directory record, followed by the extra field and comment lengths.
+     */
+    private static final int RECORD_FILE_NAME_LENGTH_OFFSET = 28;
+
+    private final long archiveSize;
+
+    private final long archiveLastModified;
+
+    private final long endRecordsCrc;
+
+    private final long centralDirectoryOffset;
+
+    private final int centralDirectoryLength;
+
+    private final boolean useUnicodeExtraFields;
+
+    private final byte[] encoding;
+
+    /**
+     * @param endRecordsCrc CRC of the records following the central directory, they contain its offset, length and entry count
+     */
+    CentralDirectoryIndexFile(final long archiveSize, final long archiveLastModified, final long endRecordsCrc, final long centralDirectoryOffset,
+            final int centralDirectoryLength, final boolean useUnicodeExtraFields, final String encoding) {
+        this.archiveSize = archiveSize;
+        this.archiveLastModified = archiveLastModified;
+        this.endRecordsCrc = endRecordsCrc;
+        this.centralDirectoryOffset = centralDirectoryOffset;
+        this.centralDirectoryLength = centralDirectoryLength;
+        this.useUnicodeExtraFields = useUnicodeExtraFields;
+        String encodingName = encoding;
+        if (encodingName == null) {
+            encodingName = "";
+        }
+        try {
+            this.encoding = encodingName.getBytes("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param centralDirectoryPosition position of the central directory in the file
+     * @return true if the central directory holds the whole record, with its name, extra field and comment
+     */
+    private boolean isRecordInside(final ByteBuffer map, final int centralDirectoryPosition, final int recordOffset) {
+        if (recordOffset < 0 || recordOffset > centralDirectoryLength - RECORD_FIXED_LENGTH) {
+            return false;
+        }
+        int position = centralDirectoryPosition + recordOffset;
+        if ((map.getInt(position) & 0xFFFFFFFFL) != ZipLong.CFH_SIG.getValue()) {
+            return false;
+        }
+        int variableLength = (map.getShort(position + RECORD_FILE_NAME_LENGTH_OFFSET) & 0xFFFF) + (map.getShort(position + RECORD_FILE_NAME_LENGTH_OFFSET + 2) & 0xFFFF)
+                + (map.getShort(position + RECORD_FILE_NAME_LENGTH_OFFSET + 4) & 0xFFFF);
+        return recordOffset + RECORD_FIXED_LENGTH + variableLength <= centralDirectoryLength;
+    }
+
+    private static IntBuffer intView(final ByteBuffer buffer, final int offset, final int count) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + count * INT_SIZE);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * @return null if the file is absent or does not describe this archive
+     */
+    public CentralDirectoryIndex load(final File file) {
+        long length = file.length();
+        if (length < HEADER_LENGTH || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        try {
+            MappedByteBuffer map;
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                // the mapping stays valid once the file is closed
+                map = randomAccessFile.getChannel().map(MapMode.READ_ONLY, 0, length);
+            } finally {
+                randomAccessFile.close();
+            }
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt() != MAGIC || map.getLong() != archiveSize || map.getLong() != archiveLastModified || map.getLong() != endRecordsCrc
+                    || map.getLong() != centralDirectoryOffset || map.getInt() != centralDirectoryLength || (map.getInt() != 0) != useUnicodeExtraFields) {
+                return null;
+            }
+            int count = map.getInt();
+            int tableCapacity = map.getInt();
+            int encodingLength = map.getInt();
+            if (count < 0 || tableCapacity != CentralDirectoryIndex.getTableCapacity(count) || encodingLength != encoding.length
+                    || length != (long) HEADER_LENGTH + encodingLength + (2L * count + tableCapacity) * INT_SIZE + centralDirectoryLength) {
+                return null;
+            }
+            for (int i = 0; i < encodingLength; i++) {
+                if (map.get() != encoding[i]) {
+                    return null;
+                }
+            }
+            int offset = HEADER_LENGTH + encodingLength;
+            IntBuffer recordOffsets = intView(map, offset, count);
+            offset += count * INT_SIZE;
+            IntBuffer nameHashes = intView(map, offset, count);
+            offset += count * INT_SIZE;
+            IntBuffer table = intView(map, offset, tableCapacity);
+            offset += tableCapacity * INT_SIZE;
+            // bounds are checked so a corrupt file fails here and not on lookup
+            for (int i = 0; i < count; i++) {
+                if (!isRecordInside(map, offset, recordOffsets.get(i))) {
+                    return null;
+                }
+            }
+            // each entry must be in exactly one slot, the remaining free slots end the probe sequences
+            boolean[] indexed = new boolean[count];
+            int indexedCount = 0;
+            for (int i = 0; i < tableCapacity; i++) {
+                int value = table.get(i);
+                if (value == 0) {
+                    continue;
+                }
+                if (value < 0 || value > count || indexed[value - 1]) {
+                    return null;
+                }
+                indexed[value - 1] = true;
+                indexedCount++;
+            }
+            if (indexedCount != count) {
+                return null;
+            }
+            ByteBuffer centralDirectory = map.duplicate();
+            centralDirectory.position(offset);
+            return new CentralDirectoryIndex(centralDirectory.slice(), recordOffsets, nameHashes, table);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Failures are ignored, the index will be built again next time.
+     */
+    public void store(final File file, final CentralDirectoryIndex centralDirectoryIndex) {
+        int count = centralDirectoryIndex.size();
+        int tableCapacity = centralDirectoryIndex.getTableCapacity();
+        long length = (long) HEADER_LENGTH + encoding.length + (2L * count + tableCapacity) * INT_SIZE + centralDirectoryLength;
+        if (length > Integer.MAX_VALUE) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putLong(archiveSize).putLong(archiveLastModified).putLong(endRecordsCrc).putLong(centralDirectoryOffset).putInt(centralDirectoryLength);
+        buffer.putInt(useUnicodeExtraFields ? 1 : 0).putInt(count).putInt(tableCapacity).putInt(encoding.length).put(encoding);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(centralDirectoryIndex.getRecordOffset(i));
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(centralDirectoryIndex.getNameHash(i));
+        }
+        for (int i = 0; i < tableCapacity; i++) {
+            buffer.putInt(centralDirectoryIndex.getTableValue(i));
+        }
+        ByteBuffer centralDirectory = centralDirectoryIndex.getCentralDirectory();
+        centralDirectory.clear();
+        buffer.put(centralDirectory);
+        buffer.flip();
+
+        File tempFile = null;
+        try {
+            // written aside then renamed, so a concurrent reader never maps a partial file
+            tempFile = File.createTempFile("index", ".tmp", file.getAbsoluteFile().getParentFile());
+            FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+            try {
+                FileChannel channel = fileOutputStream.getChannel();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                fileOutputStream.close();
+            }
+            if (!tempFile.renameTo(file)) {
+                file.delete();
+                if (!tempFile.renameTo(file)) {
+                    return;
+                }
+            }
+            tempFile = null;
+        } catch (IOException e) {
+            // ignore
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+}
@@ -45,6 +45,14 @@ public class Deflate64CompressorInputStream extends CompressorInputStream implem
         originalStream = in;
     }
 
+    /**
+     * @param bufferSize size of the blocks read from the stream, which must end with the compressed data
+     */
+    Deflate64CompressorInputStream(final InputStream in, final int bufferSize) {
+        this(new HuffmanDecoder(in, bufferSize));
+        originalStream = in;
+    }
+
     Deflate64CompressorInputStream(final HuffmanDecoder decoder) {
         this.decoder = decoder;
     }
@@ -35,6 +35,8 @@ class ExplodingInputStream extends InputStream implements InputStreamStatistics
     /** The underlying stream containing the compressed data */
     private final InputStream in;
 
+    private final int bufferSize;
+
     /** The stream of bits read from the input stream */
     private BitStream bits;
 
@@ -69,6 +71,13 @@ class ExplodingInputStream extends InputStream implements InputStreamStatistics
      * @param in the compressed data stream
      */
     public ExplodingInputStream(final int dictionarySize, final int numberOfTrees, final InputStream in) {
+        this(dictionarySize, numberOfTrees, in, 0);
+    }
+
+    /**
+     * @param bufferSize size of the blocks read from the stream once the trees are decoded, the stream must end with the compressed data
+     */
+    ExplodingInputStream(final int dictionarySize, final int numberOfTrees, final InputStream in, final int bufferSize) {
         if (dictionarySize != 4096 && dictionarySize != 8192) {
             throw new IllegalArgumentException("The dictionary size must be 4096 or 8192");
         }
@@ -79,6 +88,7 @@ class ExplodingInputStream extends InputStream implements InputStreamStatistics
         this.numberOfTrees = numberOfTrees;
         this.minimumMatchLength = numberOfTrees;
         this.in = in;
+        this.bufferSize = bufferSize;
     }
 
     /**
@@ -101,7 +111,7 @@ class ExplodingInputStream extends InputStream implements InputStreamStatistics
                 i.close();
             }
 
-            bits = new BitStream(in);
+            bits = new BitStream(in, bufferSize);
         }
     }
 
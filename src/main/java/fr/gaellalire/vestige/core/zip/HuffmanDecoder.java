@@ -105,19 +105,24 @@ class HuffmanDecoder implements Closeable {
         Arrays.fill(FIXED_DISTANCE, 5);
     }
 
+    private static final DecodingTable FIXED_LITERALS_TABLE = new DecodingTable(FIXED_LITERALS, DecodingTable.LITERALS_ROOT_BITS);
+
+    private static final DecodingTable FIXED_DISTANCE_TABLE = new DecodingTable(FIXED_DISTANCE, DecodingTable.DISTANCE_ROOT_BITS);
+
     private boolean finalBlock = false;
 
     private DecoderState state;
 
     private BitInputStream reader;
 
-    private final InputStream in;
-
     private final DecodingMemory memory = new DecodingMemory();
 
     HuffmanDecoder(final InputStream in) {
-        this.reader = new BitInputStream(in, ByteOrder.LITTLE_ENDIAN);
-        this.in = in;
+        this(in, 0);
+    }
+
+    HuffmanDecoder(final InputStream in, final int bufferSize) {
+        this.reader = new BitInputStream(in, ByteOrder.LITTLE_ENDIAN, bufferSize);
         state = new InitialState();
     }
 
@@ -141,11 +146,12 @@ class HuffmanDecoder implements Closeable {
                     switchToUncompressedState();
                     break;
                 case 1:
-                    state = new HuffmanCodes(FIXED_CODES, FIXED_LITERALS, FIXED_DISTANCE);
+                    state = new HuffmanCodes(FIXED_CODES, FIXED_LITERALS_TABLE, FIXED_DISTANCE_TABLE);
                     break;
                 case 2:
                     int[][] tables = readDynamicTables();
-                    state = new HuffmanCodes(DYNAMIC_CODES, tables[0], tables[1]);
+                    state = new HuffmanCodes(DYNAMIC_CODES, new DecodingTable(tables[0], DecodingTable.LITERALS_ROOT_BITS),
+                            new DecodingTable(tables[1], DecodingTable.DISTANCE_ROOT_BITS));
                     break;
                 default:
                     throw new IllegalStateException("Unsupported compression: " + mode);
@@ -233,7 +239,7 @@ class HuffmanDecoder implements Closeable {
                     b[off + readSoFar] = memory.add(next);
                     readNow = 1;
                 } else {
-                    readNow = in.read(b, off + readSoFar, max - readSoFar);
+                    readNow = reader.readBytes(b, off + readSoFar, max - readSoFar);
                     if (readNow == -1) {
                         throw new EOFException("Truncated Deflate64 Stream");
                     }
@@ -286,9 +292,9 @@ class HuffmanDecoder implements Closeable {
 
         private final HuffmanState state;
 
-        private final BinaryTreeNode lengthTree;
+        private final DecodingTable lengthTable;
 
-        private final BinaryTreeNode distanceTree;
+        private final DecodingTable distanceTable;
 
         private int runBufferPos = 0;
 
@@ -296,10 +302,10 @@ class HuffmanDecoder implements Closeable {
 
         private int runBufferLength = 0;
 
-        HuffmanCodes(final HuffmanState state, final int[] lengths, final int[] distance) {
+        HuffmanCodes(final HuffmanState state, final DecodingTable lengthTable, final DecodingTable distanceTable) {
             this.state = state;
-            lengthTree = buildTree(lengths);
-            distanceTree = buildTree(distance);
+            this.lengthTable = lengthTable;
+            this.distanceTable = distanceTable;
         }
 
         @Override
@@ -322,7 +328,7 @@ class HuffmanDecoder implements Closeable {
             int result = copyFromRunBuffer(b, off, len);
 
             while (result < len) {
-                int symbol = nextSymbol(reader, lengthTree);
+                int symbol = lengthTable.decode(reader);
                 if (symbol < 256) {
                     b[off + result++] = memory.add((byte) symbol);
                 } else if (symbol > 256) {
@@ -331,7 +337,7 @@ class HuffmanDecoder implements Closeable {
                     int runXtra = runMask & 0x1F;
                     run += readBits(runXtra);
 
-                    int distSym = nextSymbol(reader, distanceTree);
+                    int distSym = distanceTable.decode(reader);
 
                     int distMask = DISTANCE_TABLE[distSym];
                     int dist = distMask >>> 4;
@@ -377,15 +383,6 @@ class HuffmanDecoder implements Closeable {
         }
     }
 
-    private static int nextSymbol(final BitInputStream reader, final BinaryTreeNode tree) throws IOException {
-        BinaryTreeNode node = tree;
-        while (node != null && node.literal == -1) {
-            long bit = readBits(reader, 1);
-            node = bit == 0 ? node.leftNode : node.rightNode;
-        }
-        return node != null ? node.literal : -1;
-    }
-
     private static void populateDynamicTables(final BitInputStream reader, final int[] literals, final int[] distances) throws IOException {
         int codeLengths = (int) (readBits(reader, 4) + 4);
 
@@ -394,7 +391,7 @@ class HuffmanDecoder implements Closeable {
             codeLengthValues[CODE_LENGTHS_ORDER[cLen]] = (int) readBits(reader, 3);
         }
 
-        BinaryTreeNode codeLengthTree = buildTree(codeLengthValues);
+        DecodingTable codeLengthTable = new DecodingTable(codeLengthValues, DecodingTable.CODE_LENGTHS_ROOT_BITS);
 
         final int[] auxBuffer = new int[literals.length + distances.length];
 
@@ -406,7 +403,7 @@ class HuffmanDecoder implements Closeable {
                 auxBuffer[off++] = value;
                 length--;
             } else {
-                int symbol = nextSymbol(reader, codeLengthTree);
+                int symbol = codeLengthTable.decode(reader);
                 if (symbol < 16) {
                     value = symbol;
                     auxBuffer[off++] = value;
@@ -426,79 +423,127 @@ class HuffmanDecoder implements Closeable {
         System.arraycopy(auxBuffer, literals.length, distances, 0, distances.length);
     }
 
-    private static class BinaryTreeNode {
-        private final int bits;
+    /**
+     * Two level lookup table of a canonical Huffman code. The root table is indexed by the next root bits of the stream, codes longer than the root bits link to a sub table
+     * indexed by the following bits. An entry is (symbol &lt;&lt; 5) | code length, or (sub table offset &lt;&lt; 5) | LINK.
+     */
+    private static final class DecodingTable {
+
+        static final int LITERALS_ROOT_BITS = 9;
 
-        int literal = -1;
+        static final int DISTANCE_ROOT_BITS = 7;
 
-        BinaryTreeNode leftNode;
+        static final int CODE_LENGTHS_ROOT_BITS = 7;
 
-        BinaryTreeNode rightNode;
+        private static final int MAX_CODE_LENGTH = 15;
 
-        private BinaryTreeNode(final int bits) {
-            this.bits = bits;
-        }
+        private static final int LENGTH_MASK = 0x1F;
 
-        void leaf(final int symbol) {
-            literal = symbol;
-            leftNode = null;
-            rightNode = null;
-        }
+        private static final int VALUE_SHIFT = 5;
 
-        BinaryTreeNode left() {
-            if (leftNode == null && literal == -1) {
-                leftNode = new BinaryTreeNode(bits + 1);
-            }
-            return leftNode;
-        }
+        private static final int LINK = MAX_CODE_LENGTH + 1;
 
-        BinaryTreeNode right() {
-            if (rightNode == null && literal == -1) {
-                rightNode = new BinaryTreeNode(bits + 1);
-            }
-            return rightNode;
-        }
-    }
+        private final int[] table;
 
-    private static BinaryTreeNode buildTree(final int[] litTable) {
-        int[] literalCodes = getCodes(litTable);
+        private final int rootBits;
 
-        BinaryTreeNode root = new BinaryTreeNode(0);
+        private final int maxLength;
 
-        for (int i = 0; i < litTable.length; i++) {
-            int len = litTable[i];
-            if (len != 0) {
-                BinaryTreeNode node = root;
-                int lit = literalCodes[len - 1];
-                for (int p = len - 1; p >= 0; p--) {
-                    int bit = lit & (1 << p);
-                    node = bit == 0 ? node.left() : node.right();
+        DecodingTable(final int[] lengths, final int maxRootBits) {
+            int max = 0;
+            int[] lengthCount = new int[MAX_CODE_LENGTH + 1];
+            for (int length : lengths) {
+                if (length < 0 || length > MAX_CODE_LENGTH) {
+                    throw new IllegalStateException("Invalid Huffman code length " + length);
                 }
-                node.leaf(i);
-                literalCodes[len - 1]++;
+                lengthCount[length]++;
+                max = Math.max(max, length);
+            }
+            lengthCount[0] = 0;
+            maxLength = max;
+            rootBits = Math.min(maxRootBits, max);
+
+            int[] nextCode = new int[MAX_CODE_LENGTH + 1];
+            int code = 0;
+            for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+                code = (code + lengthCount[length - 1]) << 1;
+                nextCode[length] = code;
             }
-        }
-        return root;
-    }
-
-    private static int[] getCodes(final int[] litTable) {
-        int max = 0;
-        int[] blCount = new int[65];
 
-        for (int aLitTable : litTable) {
-            max = Math.max(max, aLitTable);
-            blCount[aLitTable]++;
+            int rootSize = 1 << rootBits;
+            int subBits = max - rootBits;
+            // one sub table for each root entry which is the prefix of a long code
+            int subTableCount = 0;
+            if (subBits > 0) {
+                boolean[] linked = new boolean[rootSize];
+                int[] codes = nextCode.clone();
+                for (int length : lengths) {
+                    if (length > rootBits) {
+                        int prefix = reverse(codes[length] >>> (length - rootBits), rootBits);
+                        codes[length]++;
+                        if (!linked[prefix]) {
+                            linked[prefix] = true;
+                            subTableCount++;
+                        }
+                    }
+                }
+            }
+            table = new int[rootSize + (subTableCount << subBits)];
+            int nextSubTable = rootSize;
+            for (int symbol = 0; symbol < lengths.length; symbol++) {
+                int length = lengths[symbol];
+                if (length == 0) {
+                    continue;
+                }
+                int reversed = reverse(nextCode[length]++, length);
+                int entry = (symbol << VALUE_SHIFT) | length;
+                if (length <= rootBits) {
+                    for (int i = reversed; i < rootSize; i += 1 << length) {
+                        table[i] = entry;
+                    }
+                    continue;
+                }
+                int prefix = reversed & (rootSize - 1);
+                int subTable;
+                if (table[prefix] == 0) {
+                    subTable = nextSubTable;
+                    nextSubTable += 1 << subBits;
+                    table[prefix] = (subTable << VALUE_SHIFT) | LINK;
+                } else if ((table[prefix] & LENGTH_MASK) == LINK) {
+                    subTable = table[prefix] >>> VALUE_SHIFT;
+                } else {
+                    throw new IllegalStateException("Invalid Huffman code lengths");
+                }
+                for (int i = reversed >>> rootBits; i < 1 << subBits; i += 1 << (length - rootBits)) {
+                    table[subTable + i] = entry;
+                }
+            }
         }
-        blCount = Arrays.copyOf(blCount, max + 1);
 
-        int code = 0;
-        int[] nextCode = new int[max + 1];
-        for (int i = 0; i <= max; i++) {
-            code = (code + blCount[i]) << 1;
-            nextCode[i] = code;
+        private static int reverse(final int code, final int length) {
+            return Integer.reverse(code) >>> (Integer.SIZE - length);
         }
 
-        return nextCode;
+        /**
+         * @return the next symbol
+         */
+        int decode(final BitInputStream reader) throws IOException {
+            long bits = reader.peekBits(maxLength);
+            int entry = table[(int) bits & ((1 << rootBits) - 1)];
+            int length = entry & LENGTH_MASK;
+            if (length == LINK) {
+                entry = table[(entry >>> VALUE_SHIFT) + ((int) (bits >>> rootBits) & ((1 << (maxLength - rootBits)) - 1))];
+                length = entry & LENGTH_MASK;
+            }
+            if (length == 0 || length > reader.bitsCached()) {
+                if (reader.bitsCached() < maxLength) {
+                    throw new EOFException("Truncated Deflate64 Stream");
+                }
+                throw new IllegalStateException("Invalid Huffman code");
+            }
+            reader.skipCachedBits(length);
+            return entry >>> VALUE_SHIFT;
+        }
     }
 
     private static class DecodingMemory {
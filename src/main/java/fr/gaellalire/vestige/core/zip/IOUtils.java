@@ -39,6 +39,11 @@ public final class IOUtils {
 
     private static final int SKIP_BUF_SIZE = 4096;
 
+    /**
+     * Some VMs reserve header words in an array.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     // This buffer does not need to be synchronised because it is write only; the contents are ignored
     // Does not affect Immutability
     private static final byte[] SKIP_BUF = new byte[SKIP_BUF_SIZE];
@@ -201,6 +206,36 @@ public final class IOUtils {
         }
     }
 
+    /**
+     * Reads the whole stream in an array of the expected size. If the stream is longer or shorter the content is still returned whole, in an array of its actual length.
+     * @param input stream to read from, not closed
+     * @param expectedSize size announced by the container of the stream, -1 if unknown
+     * @return the content of the stream
+     * @throws IOException if an I/O error has occurred
+     */
+    public static byte[] readFully(final InputStream input, final long expectedSize) throws IOException {
+        if (expectedSize < 0 || expectedSize > MAX_ARRAY_SIZE) {
+            return toByteArray(input);
+        }
+        final byte[] array = new byte[(int) expectedSize];
+        final int count = readFully(input, array, 0, array.length);
+        if (count != array.length) {
+            final byte[] truncated = new byte[count];
+            System.arraycopy(array, 0, truncated, 0, count);
+            return truncated;
+        }
+        // also lets a verifying stream check the content
+        final int next = input.read();
+        if (next == -1) {
+            return array;
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(array.length + COPY_BUF_SIZE);
+        output.write(array);
+        output.write(next);
+        copy(input, output);
+        return output.toByteArray();
+    }
+
     // toByteArray(InputStream) copied from:
     // commons/proper/io/trunk/src/main/java/org/apache/commons/io/IOUtils.java?revision=1428941
     // January 8th, 2013
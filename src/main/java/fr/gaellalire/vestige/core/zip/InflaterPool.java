@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of nowrap {@link Inflater} with their input buffer, shared by the streams of {@link ZipFile}. Inflaters which do not fit in the pool are ended.
+ * @author Gael Lalire
+ */
+public final class InflaterPool {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MIN_MAX_SIZE = 4;
+
+    private static final InflaterPool INSTANCE = new InflaterPool(Math.max(MIN_MAX_SIZE, 2 * Runtime.getRuntime().availableProcessors()));
+
+    private final Queue<PooledInflater> pooledInflaters = new ConcurrentLinkedQueue<PooledInflater>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int maxSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    InflaterPool(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static InflaterPool getInstance() {
+        return INSTANCE;
+    }
+
+    PooledInflater acquire() {
+        PooledInflater pooledInflater = pooledInflaters.poll();
+        if (pooledInflater == null) {
+            missCount.incrementAndGet();
+            return new PooledInflater(new Inflater(true), new byte[BUFFER_SIZE]);
+        }
+        size.decrementAndGet();
+        hitCount.incrementAndGet();
+        return pooledInflater;
+    }
+
+    void release(final PooledInflater pooledInflater) {
+        if (size.incrementAndGet() > maxSize) {
+            size.decrementAndGet();
+            pooledInflater.getInflater().end();
+            return;
+        }
+        pooledInflater.getInflater().reset();
+        pooledInflaters.offer(pooledInflater);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of idle inflaters
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return hits divided by acquisitions, 0 if nothing was acquired
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hits / total;
+    }
+
+    /**
+     * An inflater and its input buffer.
+     * @author Gael Lalire
+     */
+    static final class PooledInflater {
+
+        private final Inflater inflater;
+
+        private final byte[] buffer;
+
+        PooledInflater(final Inflater inflater, final byte[] buffer) {
+            this.inflater = inflater;
+            this.buffer = buffer;
+        }
+
+        public Inflater getInflater() {
+            return inflater;
+        }
+
+        public byte[] getBuffer() {
+            return buffer;
+        }
+
+    }
+
+}
@@ -0,0 +1,568 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import fr.gaellalire.vestige.core.executor.DaemonThreadFactory;
+
+/**
+ * BZip2 decompressor decoding the blocks of a single stream concurrently. The compressed data is scanned for the 48 bits block magic, each block is decoded as a standalone
+ * stream by a {@link BZip2CompressorInputStream} on a shared pool, and the results are returned in order. A magic found inside compressed data splits a block in parts which
+ * fail to decode, those parts are merged back. The end of stream magic must be followed by the combined CRC and the end of the input, so the input must end with the stream.
+ * @author Gael Lalire
+ */
+public class ParallelBZip2CompressorInputStream extends CompressorInputStream implements InputStreamStatistics {
+
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+
+    private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+    private static final int MAGIC_BITS = 48;
+
+    private static final long MAGIC_MASK = (1L << MAGIC_BITS) - 1;
+
+    private static final int CRC_BITS = 32;
+
+    private static final int HEADER_LENGTH = 4;
+
+    private static final int READ_BUFFER_SIZE = 65536;
+
+    private static final int INITIAL_SEGMENT_SIZE = 65536;
+
+    /**
+     * Magics found by chance in the compressed data of a block are very rare, a block needing more merges is considered corrupt.
+     */
+    private static final int MAX_MERGED_SEGMENTS = 16;
+
+    private static volatile ExecutorService executorService;
+
+    private final InputStream in;
+
+    private final int maxBlocksInFlight;
+
+    private final Deque<PendingBlock> pendingBlocks = new ArrayDeque<PendingBlock>();
+
+    private byte[] header;
+
+    /**
+     * Bytes of the largest valid block with the block size of the header, followed by the end of stream.
+     */
+    private int maxSegmentLength;
+
+    private byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    private int readBufferPosition;
+
+    private int readBufferLimit;
+
+    private long compressedCount;
+
+    /**
+     * Last 64 bits read, the last one in the lowest bit.
+     */
+    private long window;
+
+    private long bitPosition;
+
+    private Segment currentSegment;
+
+    /**
+     * Segment closed by a magic ending in the middle of the last byte read.
+     */
+    private Segment pendingSegment;
+
+    private long endOfStreamCandidate = -1;
+
+    private boolean scanEnded;
+
+    private int storedCombinedCRC;
+
+    private int computedCombinedCRC;
+
+    private byte[] block;
+
+    private int blockPosition;
+
+    private boolean closed;
+
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * @param in the compressed stream, it must end with the BZip2 stream
+     * @param maxBlocksInFlight maximum number of blocks decoded or waiting to be read, bounds the read ahead memory
+     */
+    public ParallelBZip2CompressorInputStream(final InputStream in, final int maxBlocksInFlight) {
+        this.in = in;
+        this.maxBlocksInFlight = Math.max(1, maxBlocksInFlight);
+    }
+
+    private static ExecutorService getExecutorService() {
+        ExecutorService result = executorService;
+        if (result == null) {
+            synchronized (ParallelBZip2CompressorInputStream.class) {
+                result = executorService;
+                if (result == null) {
+                    int threadCount = Runtime.getRuntime().availableProcessors();
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                            new DaemonThreadFactory("vestige-bzip2-decoder-"));
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    result = threadPoolExecutor;
+                    executorService = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void readHeader() throws IOException {
+        header = new byte[HEADER_LENGTH];
+        for (int i = 0; i < HEADER_LENGTH; i++) {
+            int read = readByte();
+            if (read == -1) {
+                throw new IOException("Stream is not in the BZip2 format");
+            }
+            header[i] = (byte) read;
+        }
+        if (header[0] != 'B' || header[1] != 'Z' || header[2] != 'h') {
+            throw new IOException("Stream is not in the BZip2 format");
+        }
+        if (header[HEADER_LENGTH - 1] < '1' || header[HEADER_LENGTH - 1] > '9') {
+            throw new IOException("BZip2 block size is invalid");
+        }
+        maxSegmentLength = (int) ((getMaxBlockBits(header[HEADER_LENGTH - 1] - '0') + MAGIC_BITS + CRC_BITS + 7) >>> 3) + 1;
+        bitPosition = HEADER_LENGTH * Byte.SIZE;
+        currentSegment = new Segment(bitPosition);
+    }
+
+    /**
+     * Magic, CRC, randomised flag, origin pointer, symbol map, group and selector counts, selectors, code lengths of each group with increments only, then one code of
+     * at most {@link BZip2Constants#MAX_CODE_LEN} bits per byte of the block and the end of block code.
+     * @return an upper bound of the bits of a block written by a BZip2 encoder
+     */
+    private static long getMaxBlockBits(final int blockSize100k) {
+        return MAGIC_BITS + CRC_BITS + 1 + 24 + 16 + 16 * 16 + 3 + 15 + Short.MAX_VALUE * (BZip2Constants.N_GROUPS + 1)
+                + BZip2Constants.N_GROUPS * (5 + BZip2Constants.MAX_ALPHA_SIZE * (1 + 2L * BZip2Constants.MAX_CODE_LEN))
+                + ((long) blockSize100k * BZip2Constants.BASEBLOCKSIZE + 1) * BZip2Constants.MAX_CODE_LEN;
+    }
+
+    private int readByte() throws IOException {
+        if (readBufferPosition == readBufferLimit) {
+            int read = in.read(readBuffer, 0, readBuffer.length);
+            while (read == 0) {
+                read = in.read(readBuffer, 0, readBuffer.length);
+            }
+            if (read == -1) {
+                return -1;
+            }
+            compressedCount += read;
+            readBufferPosition = 0;
+            readBufferLimit = read;
+        }
+        return readBuffer[readBufferPosition++] & 0xFF;
+    }
+
+    /**
+     * Scans the input up to the next block magic.
+     * @return the block before the magic, the last block at the end of the stream, or null once the last block was returned
+     */
+    private Segment nextSegment() throws IOException {
+        if (scanEnded) {
+            return null;
+        }
+        if (header == null) {
+            readHeader();
+        }
+        while (true) {
+            int read = readByte();
+            if (read == -1) {
+                return endScan();
+            }
+            currentSegment.append((byte) read);
+            if (currentSegment.getLength() > maxSegmentLength) {
+                // the scanned data is not held beyond what a valid block needs
+                throw new IOException("BZip2 block is too large");
+            }
+            for (int shift = Byte.SIZE - 1; shift >= 0; shift--) {
+                window = (window << 1) | ((read >>> shift) & 1);
+                bitPosition++;
+                long magic = window & MAGIC_MASK;
+                if (magic == BLOCK_MAGIC) {
+                    long magicPosition = bitPosition - MAGIC_BITS;
+                    // the end of stream magic found before was in the compressed data
+                    endOfStreamCandidate = -1;
+                    if (magicPosition != currentSegment.getStartBit()) {
+                        Segment segment = currentSegment;
+                        currentSegment = segment.split(magicPosition);
+                        if (shift == 0) {
+                            return segment;
+                        }
+                        // finish the current byte before returning
+                        pendingSegment = segment;
+                    }
+                } else if (magic == END_OF_STREAM_MAGIC) {
+                    endOfStreamCandidate = bitPosition - MAGIC_BITS;
+                }
+            }
+            if (pendingSegment != null) {
+                Segment segment = pendingSegment;
+                pendingSegment = null;
+                return segment;
+            }
+        }
+    }
+
+    private Segment endScan() throws IOException {
+        scanEnded = true;
+        long endOfStream = endOfStreamCandidate;
+        // combined CRC and padding
+        if (endOfStream == -1 || bitPosition - endOfStream - MAGIC_BITS < CRC_BITS || bitPosition - endOfStream - MAGIC_BITS >= CRC_BITS + Byte.SIZE) {
+            throw new IOException("Unexpected end of stream");
+        }
+        storedCombinedCRC = currentSegment.readInt(endOfStream + MAGIC_BITS);
+        if (endOfStream == currentSegment.getStartBit()) {
+            // no block
+            return null;
+        }
+        Segment segment = currentSegment;
+        currentSegment = null;
+        segment.split(endOfStream);
+        return segment;
+    }
+
+    private void submit(final Segment segment) {
+        final byte[] standaloneStream = segment.toStandaloneStream(header);
+        Future<byte[]> future = getExecutorService().submit(new Callable<byte[]>() {
+
+            @Override
+            public byte[] call() throws Exception {
+                return decode(standaloneStream);
+            }
+        });
+        pendingBlocks.add(new PendingBlock(segment, future));
+    }
+
+    private static byte[] decode(final byte[] standaloneStream) throws IOException {
+        BZip2CompressorInputStream bZip2CompressorInputStream = new BZip2CompressorInputStream(new ByteArrayInputStream(standaloneStream));
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(standaloneStream.length * 4);
+            IOUtils.copy(bZip2CompressorInputStream, output);
+            return output.toByteArray();
+        } finally {
+            bZip2CompressorInputStream.close();
+        }
+    }
+
+    private void fill() throws IOException {
+        while (pendingBlocks.size() < maxBlocksInFlight) {
+            Segment segment = nextSegment();
+            if (segment == null) {
+                return;
+            }
+            submit(segment);
+        }
+    }
+
+    /**
+     * @return false at the end of the stream
+     */
+    private boolean nextBlock() throws IOException {
+        fill();
+        PendingBlock pendingBlock = pendingBlocks.poll();
+        if (pendingBlock == null) {
+            if (storedCombinedCRC != computedCombinedCRC) {
+                throw new IOException("BZip2 CRC error");
+            }
+            return false;
+        }
+        Segment segment = pendingBlock.getSegment();
+        byte[] decoded;
+        try {
+            decoded = pendingBlock.getFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            // a magic in the compressed data may have split the block
+            Throwable failure = e.getCause();
+            decoded = null;
+            int mergedSegments = 1;
+            while (decoded == null) {
+                PendingBlock next = pendingBlocks.poll();
+                Segment nextSegment;
+                if (next != null) {
+                    next.getFuture().cancel(false);
+                    nextSegment = next.getSegment();
+                } else {
+                    nextSegment = nextSegment();
+                }
+                mergedSegments++;
+                if (nextSegment == null || mergedSegments > MAX_MERGED_SEGMENTS || segment.getMergedLength(nextSegment) > maxSegmentLength) {
+                    // corrupt data, merging more would only copy and hold the rest of the stream
+                    if (failure instanceof IOException) {
+                        throw (IOException) failure;
+                    }
+                    throw new IOException("BZip2 block decoding failed", failure);
+                }
+                segment = segment.merge(nextSegment);
+                try {
+                    decoded = decode(segment.toStandaloneStream(header));
+                } catch (IOException ioException) {
+                    decoded = null;
+                } catch (RuntimeException runtimeException) {
+                    decoded = null;
+                }
+            }
+        }
+        computedCombinedCRC = (computedCombinedCRC << 1) | (computedCombinedCRC >>> 31);
+        computedCombinedCRC ^= segment.readInt(segment.getStartBit() + MAGIC_BITS);
+        block = decoded;
+        blockPosition = 0;
+        return true;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (block == null || blockPosition == block.length) {
+            block = null;
+            if (!nextBlock()) {
+                return -1;
+            }
+        }
+        int read = Math.min(len, block.length - blockPosition);
+        System.arraycopy(block, blockPosition, b, off, read);
+        blockPosition += read;
+        count(read);
+        return read;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(singleByte, 0, 1);
+        if (read == -1) {
+            return -1;
+        }
+        return singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (PendingBlock pendingBlock : pendingBlocks) {
+            pendingBlock.getFuture().cancel(false);
+        }
+        pendingBlocks.clear();
+        block = null;
+        readBuffer = null;
+        in.close();
+    }
+
+    @Override
+    public long getCompressedCount() {
+        return compressedCount;
+    }
+
+    /**
+     * A block submitted for decoding.
+     * @author Gael Lalire
+     */
+    private static final class PendingBlock {
+
+        private final Segment segment;
+
+        private final Future<byte[]> future;
+
+        PendingBlock(final Segment segment, final Future<byte[]> future) {
+            this.segment = segment;
+            this.future = future;
+        }
+
+        public Segment getSegment() {
+            return segment;
+        }
+
+        public Future<byte[]> getFuture() {
+            return future;
+        }
+
+    }
+
+    /**
+     * Bits of the compressed stream starting at a magic. The bytes are copied from the byte containing the first bit.
+     * @author Gael Lalire
+     */
+    private static final class Segment {
+
+        private final long startBit;
+
+        /**
+         * -1 while the segment is the one being scanned.
+         */
+        private long endBit = -1;
+
+        private byte[] bytes;
+
+        private int length;
+
+        Segment(final long startBit) {
+            this(startBit, new byte[INITIAL_SEGMENT_SIZE], 0);
+        }
+
+        private Segment(final long startBit, final byte[] bytes, final int length) {
+            this.startBit = startBit;
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        public long getStartBit() {
+            return startBit;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public long getMergedLength(final Segment next) {
+            return (next.startBit >>> 3) - (startBit >>> 3) + next.length;
+        }
+
+        public void append(final byte b) {
+            if (length == bytes.length) {
+                byte[] newBytes = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, newBytes, 0, length);
+                bytes = newBytes;
+            }
+            bytes[length++] = b;
+        }
+
+        private long getEndBit() {
+            if (endBit != -1) {
+                return endBit;
+            }
+            return (startBit & ~7L) + ((long) length << 3);
+        }
+
+        /**
+         * @return a segment with the bits from position, this segment ends at position
+         */
+        public Segment split(final long position) {
+            int firstByte = (int) ((position >>> 3) - (startBit >>> 3));
+            int newLength = length - firstByte;
+            byte[] newBytes = new byte[Math.max(INITIAL_SEGMENT_SIZE, newLength)];
+            System.arraycopy(bytes, firstByte, newBytes, 0, newLength);
+            // keep the byte containing position if it is shared
+            length = (int) (((position + 7) >>> 3) - (startBit >>> 3));
+            endBit = position;
+            return new Segment(position, newBytes, newLength);
+        }
+
+        /**
+         * @return the bits of this segment followed by the bits of the next one
+         */
+        public Segment merge(final Segment next) {
+            int firstByte = (int) ((next.startBit >>> 3) - (startBit >>> 3));
+            byte[] newBytes = new byte[firstByte + next.length];
+            System.arraycopy(bytes, 0, newBytes, 0, firstByte);
+            System.arraycopy(next.bytes, 0, newBytes, firstByte, next.length);
+            Segment merged = new Segment(startBit, newBytes, newBytes.length);
+            merged.endBit = next.endBit;
+            return merged;
+        }
+
+        public int readInt(final long position) {
+            int value = 0;
+            long base = (startBit >>> 3) << 3;
+            for (int i = 0; i < CRC_BITS; i++) {
+                long bit = position + i - base;
+                value = (value << 1) | ((bytes[(int) (bit >>> 3)] >>> (7 - (int) (bit & 7))) & 1);
+            }
+            return value;
+        }
+
+        /**
+         * @return a BZip2 stream with this block followed by the end of stream magic and a combined CRC equal to the block CRC
+         */
+        public byte[] toStandaloneStream(final byte[] header) {
+            long bitCount = getBitCount();
+            byte[] stream = new byte[(int) (header.length + ((bitCount + MAGIC_BITS + CRC_BITS + 7) >>> 3) + 1)];
+            System.arraycopy(header, 0, stream, 0, header.length);
+            int shift = (int) (startBit & 7);
+            int byteCount = (int) ((bitCount + 7) >>> 3);
+            if (shift == 0) {
+                System.arraycopy(bytes, 0, stream, header.length, byteCount);
+            } else {
+                for (int i = 0; i < byteCount; i++) {
+                    int next = 0;
+                    if (i + 1 < length) {
+                        next = bytes[i + 1] & 0xFF;
+                    }
+                    stream[header.length + i] = (byte) ((bytes[i] << shift) | (next >>> (Byte.SIZE - shift)));
+                }
+            }
+            long position = ((long) header.length << 3) + bitCount;
+            position = writeBits(stream, position, END_OF_STREAM_MAGIC, MAGIC_BITS);
+            writeBits(stream, position, readInt(startBit + MAGIC_BITS) & 0xFFFFFFFFL, CRC_BITS);
+            return stream;
+        }
+
+        private long getBitCount() {
+            return getEndBit() - startBit;
+        }
+
+        private static long writeBits(final byte[] stream, final long position, final long value, final int count) {
+            long current = position;
+            for (int i = count - 1; i >= 0; i--) {
+                int index = (int) (current >>> 3);
+                int mask = 1 << (7 - (int) (current & 7));
+                if (((value >>> i) & 1) == 0) {
+                    stream[index] &= ~mask;
+                } else {
+                    stream[index] |= mask;
+                }
+                current++;
+            }
+            return current;
+        }
+
+    }
+
+}
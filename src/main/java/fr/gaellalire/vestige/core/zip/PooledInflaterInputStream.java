@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import fr.gaellalire.vestige.core.zip.InflaterPool.PooledInflater;
+
+/**
+ * Inflates a raw deflate stream with a pooled {@link Inflater} and input buffer. They are given back to the pool as soon as the end of the deflate stream is reached, or on
+ * close.
+ * @author Gael Lalire
+ */
+class PooledInflaterInputStream extends InputStream implements InputStreamStatistics {
+
+    private InflaterPool inflaterPool;
+
+    private PooledInflater pooledInflater;
+
+    private InputStream in;
+
+    private boolean inputEnded;
+
+    private boolean paddingSent;
+
+    private boolean closed;
+
+    private long compressedCount;
+
+    private long uncompressedCount;
+
+    private byte[] singleByte;
+
+    PooledInflaterInputStream(final InputStream in, final InflaterPool inflaterPool) {
+        this.in = in;
+        this.inflaterPool = inflaterPool;
+        this.pooledInflater = inflaterPool.acquire();
+    }
+
+    private void fill() throws IOException {
+        byte[] buffer = pooledInflater.getBuffer();
+        Inflater inflater = pooledInflater.getInflater();
+        if (!inputEnded) {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read != -1) {
+                compressedCount += read;
+                inflater.setInput(buffer, 0, read);
+                return;
+            }
+            inputEnded = true;
+        }
+        if (paddingSent) {
+            throw new EOFException("Unexpected end of ZLIB input stream");
+        }
+        // nowrap inflater expects a zero padding byte after the data stream
+        buffer[0] = 0;
+        inflater.setInput(buffer, 0, 1);
+        paddingSent = true;
+    }
+
+    private void releaseInflater() {
+        if (pooledInflater != null) {
+            PooledInflater released = pooledInflater;
+            pooledInflater = null;
+            inflaterPool.release(released);
+        }
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (pooledInflater == null) {
+            return -1;
+        }
+        Inflater inflater = pooledInflater.getInflater();
+        try {
+            while (true) {
+                int inflated = inflater.inflate(b, off, len);
+                if (inflated != 0) {
+                    uncompressedCount += inflated;
+                    return inflated;
+                }
+                if (inflater.finished() || inflater.needsDictionary()) {
+                    releaseInflater();
+                    return -1;
+                }
+                if (inflater.needsInput()) {
+                    fill();
+                }
+            }
+        } catch (DataFormatException e) {
+            String message = e.getMessage();
+            if (message == null) {
+                message = "Invalid ZLIB data format";
+            }
+            throw new ZipException(message);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (singleByte == null) {
+            singleByte = new byte[1];
+        }
+        int read = read(singleByte, 0, 1);
+        if (read == -1) {
+            return -1;
+        }
+        return singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (pooledInflater == null) {
+            return 0;
+        }
+        return 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseInflater();
+        in.close();
+    }
+
+    @Override
+    public long getCompressedCount() {
+        return compressedCount;
+    }
+
+    @Override
+    public long getUncompressedCount() {
+        return uncompressedCount;
+    }
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fr.gaellalire.vestige.core.zip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Channel which can also read at a given position without using nor modifying its own position. {@link ZipFile} uses it to read entries concurrently without lock.
+ * @author Gael Lalire
+ */
+public interface PositionalSeekableByteChannel extends SeekableByteChannel {
+
+    int read(ByteBuffer dst, long position) throws IOException;
+
+}
@@ -144,6 +144,17 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
 
     private long diskNumberStart;
 
+    /**
+     * Whether extra fields are still to be parsed from {@link #lazyCentralDirectoryExtra} and {@link #readLocalFileDataExtra()}.
+     */
+    private volatile boolean lazyExtra;
+
+    private boolean parsingLazyExtra;
+
+    private byte[] lazyCentralDirectoryExtra;
+
+    private boolean lazyLocalFileDataExtra;
+
     /**
      * Creates a new zip entry with the specified name.
      * <p>
@@ -226,6 +237,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      */
     @Override
     public Object clone() {
+        parseLazyExtra();
         final ZipArchiveEntry e = (ZipArchiveEntry) super.clone();
 
         e.setInternalAttributes(getInternalAttributes());
@@ -364,11 +376,59 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
         this.alignment = alignment;
     }
 
+    /**
+     * Defers the parsing of extra fields until one of them is accessed.
+     * @param centralDirectoryExtra central directory extra data to parse, null if already parsed
+     * @param localFileDataExtra whether {@link #readLocalFileDataExtra()} must be merged too
+     */
+    protected void setLazyExtra(final byte[] centralDirectoryExtra, final boolean localFileDataExtra) {
+        lazyCentralDirectoryExtra = centralDirectoryExtra;
+        lazyLocalFileDataExtra = localFileDataExtra;
+        lazyExtra = centralDirectoryExtra != null || localFileDataExtra;
+    }
+
+    /**
+     * Reads the extra data of the local file header when extra fields are accessed, see {@link #setLazyExtra(byte[], boolean)}.
+     * @return null if not available
+     */
+    protected byte[] readLocalFileDataExtra() {
+        return null;
+    }
+
+    private void parseLazyExtra() {
+        if (!lazyExtra) {
+            return;
+        }
+        synchronized (this) {
+            if (!lazyExtra || parsingLazyExtra) {
+                // already parsed or called back while parsing
+                return;
+            }
+            parsingLazyExtra = true;
+            try {
+                if (lazyCentralDirectoryExtra != null) {
+                    setCentralDirectoryExtra(lazyCentralDirectoryExtra);
+                }
+                if (lazyLocalFileDataExtra) {
+                    final byte[] localFileDataExtra = readLocalFileDataExtra();
+                    if (localFileDataExtra != null) {
+                        setExtra(localFileDataExtra);
+                    }
+                }
+            } finally {
+                lazyCentralDirectoryExtra = null;
+                parsingLazyExtra = false;
+                lazyExtra = false;
+            }
+        }
+    }
+
     /**
      * Replaces all currently attached extra fields with the new array.
      * @param fields an array of extra fields
      */
     public void setExtraFields(final ZipExtraField[] fields) {
+        parseLazyExtra();
         unparseableExtra = null;
         final List<ZipExtraField> newFields = new ArrayList<ZipExtraField>();
         if (fields != null) {
@@ -393,6 +453,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @return an array of the extra fields
      */
     public ZipExtraField[] getExtraFields() {
+        parseLazyExtra();
         return getParseableExtraFields();
     }
 
@@ -403,6 +464,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @since 1.1
      */
     public ZipExtraField[] getExtraFields(final boolean includeUnparseable) {
+        parseLazyExtra();
         return includeUnparseable ? getAllExtraFields() : getParseableExtraFields();
     }
 
@@ -415,6 +477,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @since 1.19
      */
     public ZipExtraField[] getExtraFields(final ExtraFieldParsingBehavior parsingBehavior) throws ZipException {
+        parseLazyExtra();
         if (parsingBehavior == ExtraFieldParsingMode.BEST_EFFORT) {
             return getExtraFields(true);
         }
@@ -510,6 +573,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @param ze an extra field
      */
     public void addExtraField(final ZipExtraField ze) {
+        parseLazyExtra();
         if (ze instanceof UnparseableExtraFieldData) {
             unparseableExtra = (UnparseableExtraFieldData) ze;
         } else {
@@ -535,6 +599,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @param ze an extra field
      */
     public void addAsFirstExtraField(final ZipExtraField ze) {
+        parseLazyExtra();
         if (ze instanceof UnparseableExtraFieldData) {
             unparseableExtra = (UnparseableExtraFieldData) ze;
         } else {
@@ -557,6 +622,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @param type the type of extra field to remove
      */
     public void removeExtraField(final ZipShort type) {
+        parseLazyExtra();
         if (extraFields == null) {
             throw new java.util.NoSuchElementException();
         }
@@ -579,6 +645,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @since 1.1
      */
     public void removeUnparseableExtraFieldData() {
+        parseLazyExtra();
         if (unparseableExtra == null) {
             throw new java.util.NoSuchElementException();
         }
@@ -592,6 +659,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @return null if no such field exists.
      */
     public ZipExtraField getExtraField(final ZipShort type) {
+        parseLazyExtra();
         if (extraFields != null) {
             for (final ZipExtraField extraField : extraFields) {
                 if (type.equals(extraField.getHeaderId())) {
@@ -608,6 +676,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @since 1.1
      */
     public UnparseableExtraFieldData getUnparseableExtraFieldData() {
+        parseLazyExtra();
         return unparseableExtra;
     }
 
@@ -619,6 +688,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      */
     @Override
     public void setExtra(final byte[] extra) throws RuntimeException {
+        parseLazyExtra();
         try {
             final ZipExtraField[] local = ExtraFieldUtils.parse(extra, true, ExtraFieldParsingMode.BEST_EFFORT);
             mergeExtraFields(local, true);
@@ -634,6 +704,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * modify super's data directly.
      */
     protected void setExtra() {
+        parseLazyExtra();
         super.setExtra(ExtraFieldUtils.mergeLocalFileDataData(getAllExtraFieldsNoCopy()));
     }
 
@@ -642,6 +713,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @param b an array of bytes to be parsed into extra fields
      */
     public void setCentralDirectoryExtra(final byte[] b) {
+        parseLazyExtra();
         try {
             final ZipExtraField[] central = ExtraFieldUtils.parse(b, false, ExtraFieldParsingMode.BEST_EFFORT);
             mergeExtraFields(central, false);
@@ -651,11 +723,27 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
         }
     }
 
+    /**
+     * Extended timestamp extra fields may replace the DOS time, so they are parsed first.
+     */
+    @Override
+    public long getTime() {
+        parseLazyExtra();
+        return super.getTime();
+    }
+
+    @Override
+    public byte[] getExtra() {
+        parseLazyExtra();
+        return super.getExtra();
+    }
+
     /**
      * Retrieves the extra data for the local file data.
      * @return the extra data for local file
      */
     public byte[] getLocalFileDataExtra() {
+        parseLazyExtra();
         final byte[] extra = getExtra();
         return extra != null ? extra : EMPTY;
     }
@@ -665,6 +753,7 @@ public class ZipArchiveEntry extends java.util.zip.ZipEntry implements ArchiveEn
      * @return the central directory extra data
      */
     public byte[] getCentralDirectoryExtra() {
+        parseLazyExtra();
         return ExtraFieldUtils.mergeCentralDirectoryData(getAllExtraFieldsNoCopy());
     }
 
@@ -24,14 +24,15 @@ import static fr.gaellalire.vestige.core.zip.ZipConstants.ZIP64_MAGIC;
 import static fr.gaellalire.vestige.core.zip.ZipConstants.ZIP64_MAGIC_SHORT;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -40,7 +41,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.Inflater;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
 import java.util.zip.ZipException;
 
 /**
@@ -65,6 +67,36 @@ import java.util.zip.ZipException;
  * </ul>
  */
 public class ZipFile implements Closeable {
+
+    /**
+     * How entries are kept in memory.
+     */
+    public static enum IndexMode {
+
+        /**
+         * Every entry is decoded when the archive is opened and kept with its local file header data.
+         */
+        ENTRIES,
+
+        /**
+         * Every entry is kept but only name, method, sizes, CRC, time and attributes are decoded when the archive is opened. Extra fields and comments are decoded when
+         * accessed, local file headers are read when an entry is first read or its extra fields are accessed. Names only come from the central directory, its Unicode path
+         * field included.
+         */
+        LAZY_ENTRIES,
+
+        /**
+         * Only the raw central directory is kept, on heap, with a hash table of names. Entries are decoded like {@link #LAZY_ENTRIES} on each lookup, so they are distinct
+         * instances.
+         */
+        COMPACT,
+
+        /**
+         * Like {@link #COMPACT} with the raw central directory in a direct buffer.
+         */
+        COMPACT_OFF_HEAP;
+    }
+
     private static final int HASH_SIZE = 509;
 
     static final int NIBLET_MASK = 0x0f;
@@ -79,7 +111,15 @@ public class ZipFile implements Closeable {
 
     private static final int POS_3 = 3;
 
-    private static final byte[] ONE_ZERO_BYTE = new byte[1];
+    /**
+     * Compressed size from which BZip2 blocks are decoded in parallel, below it there is barely more than one block.
+     */
+    private static final long PARALLEL_BZIP2_MIN_SIZE = 1024 * 1024;
+
+    /**
+     * Decoded blocks kept ahead of the reader per processor, each one holds up to 900k.
+     */
+    private static final int PARALLEL_BZIP2_BLOCKS_PER_PROCESSOR = 2;
 
     /**
      * List of entries in the order they appear inside the central directory.
@@ -91,6 +131,21 @@ public class ZipFile implements Closeable {
      */
     private final Map<String, LinkedList<ZipArchiveEntry>> nameMap = new HashMap<String, LinkedList<ZipArchiveEntry>>(HASH_SIZE);
 
+    /**
+     * Whether entries defer the decoding of extra fields, comments and local file headers.
+     */
+    private final boolean lazyEntries;
+
+    /**
+     * Replace entries and nameMap in compact modes.
+     */
+    private CentralDirectoryIndex centralDirectoryIndex;
+
+    /**
+     * Position of the record following the central directory, found while positioning at the central directory.
+     */
+    private long centralDirectoryEnd;
+
     /**
      * The encoding to use for file names and the file comment.
      * <p>
@@ -120,6 +175,11 @@ public class ZipFile implements Closeable {
      */
     private final boolean useUnicodeExtraFields;
 
+    /**
+     * Whether the size and CRC-32 of entries are checked when they are fully read.
+     */
+    private volatile boolean crcVerification;
+
     /**
      * Whether the file is closed.
      */
@@ -180,7 +240,7 @@ public class ZipFile implements Closeable {
      * @since 1.13
      */
     public ZipFile(final SeekableByteChannel channel, final String archiveName, final String encoding, final boolean useUnicodeExtraFields) throws IOException {
-        this(channel, archiveName, encoding, useUnicodeExtraFields, false, false);
+        this(channel, archiveName, encoding, useUnicodeExtraFields, false, false, IndexMode.ENTRIES, null, 0);
     }
 
     /**
@@ -207,23 +267,77 @@ public class ZipFile implements Closeable {
      */
     public ZipFile(final SeekableByteChannel channel, final String archiveName, final String encoding, final boolean useUnicodeExtraFields, final boolean ignoreLocalFileHeader)
             throws IOException {
-        this(channel, archiveName, encoding, useUnicodeExtraFields, false, ignoreLocalFileHeader);
+        this(channel, archiveName, encoding, useUnicodeExtraFields, false, ignoreLocalFileHeader, IndexMode.ENTRIES, null, 0);
+    }
+
+    /**
+     * Opens the given channel for reading with the given index mode.
+     * @param channel the archive.
+     * @param archiveName name of the archive, used for error messages only.
+     * @param encoding the encoding to use for file names, use null for the platform's default encoding
+     * @param useUnicodeExtraFields whether to use InfoZIP Unicode Extra Fields (if present) to set the file names, in compact modes only the central directory ones are used.
+     * @param indexMode how entries are kept in memory
+     * @throws IOException if an error occurs while reading the file.
+     */
+    public ZipFile(final SeekableByteChannel channel, final String archiveName, final String encoding, final boolean useUnicodeExtraFields, final IndexMode indexMode)
+            throws IOException {
+        this(channel, archiveName, encoding, useUnicodeExtraFields, false, false, indexMode, null, 0);
+    }
+
+    /**
+     * Opens the given channel for reading in {@link IndexMode#COMPACT} mode. The index is memory mapped from the sidecar file if it was written for this archive, else it is
+     * built and written to the sidecar file for the next time.
+     * <p>
+     * The sidecar file is valid if the size, the last modification time, the records following the central directory, the encoding and the Unicode extra fields option are
+     * unchanged. Its content is trusted, so it must not be writable by anyone who cannot write the archive.
+     * </p>
+     * @param channel the archive.
+     * @param archiveName name of the archive, used for error messages only.
+     * @param encoding the encoding to use for file names, use null for the platform's default encoding
+     * @param useUnicodeExtraFields whether to use InfoZIP Unicode Extra Fields (if present) to set the file names.
+     * @param sidecarIndexFile file storing the index
+     * @param archiveLastModified last modification time of the archive
+     * @throws IOException if an error occurs while reading the file.
+     */
+    public ZipFile(final SeekableByteChannel channel, final String archiveName, final String encoding, final boolean useUnicodeExtraFields, final File sidecarIndexFile,
+            final long archiveLastModified) throws IOException {
+        this(channel, archiveName, encoding, useUnicodeExtraFields, false, false, IndexMode.COMPACT, sidecarIndexFile, archiveLastModified);
     }
 
     private ZipFile(final SeekableByteChannel channel, final String archiveName, final String encoding, final boolean useUnicodeExtraFields, final boolean closeOnError,
-            final boolean ignoreLocalFileHeader) throws IOException {
+            final boolean ignoreLocalFileHeader, final IndexMode indexMode, final File sidecarIndexFile, final long archiveLastModified) throws IOException {
         this.archiveName = archiveName;
         this.encoding = encoding;
         this.zipEncoding = ZipEncodingHelper.getZipEncoding(encoding);
         this.useUnicodeExtraFields = useUnicodeExtraFields;
+        this.lazyEntries = indexMode != IndexMode.ENTRIES;
         archive = channel;
         boolean success = false;
         try {
-            final Map<ZipArchiveEntry, NameAndComment> entriesWithoutUTF8Flag = populateFromCentralDirectory();
-            if (!ignoreLocalFileHeader) {
-                resolveLocalFileHeaderData(entriesWithoutUTF8Flag);
+            if (indexMode == IndexMode.ENTRIES || indexMode == IndexMode.LAZY_ENTRIES) {
+                final Map<ZipArchiveEntry, NameAndComment> entriesWithoutUTF8Flag = populateFromCentralDirectory();
+                if (!ignoreLocalFileHeader && !lazyEntries) {
+                    resolveLocalFileHeaderData(entriesWithoutUTF8Flag);
+                }
+                fillNameMap();
+            } else {
+                positionAtCentralDirectory();
+                final long centralDirectoryOffset = archive.position();
+                CentralDirectoryIndexFile centralDirectoryIndexFile = null;
+                if (sidecarIndexFile != null) {
+                    centralDirectoryIndexFile = createCentralDirectoryIndexFile(centralDirectoryOffset, archiveLastModified);
+                    if (centralDirectoryIndexFile != null) {
+                        centralDirectoryIndex = centralDirectoryIndexFile.load(sidecarIndexFile);
+                    }
+                }
+                if (centralDirectoryIndex == null) {
+                    archive.position(centralDirectoryOffset);
+                    populateCompactIndex(indexMode == IndexMode.COMPACT_OFF_HEAP);
+                    if (centralDirectoryIndexFile != null) {
+                        centralDirectoryIndexFile.store(sidecarIndexFile, centralDirectoryIndex);
+                    }
+                }
             }
-            fillNameMap();
             success = true;
         } finally {
             closed = !success;
@@ -271,6 +385,26 @@ public class ZipFile implements Closeable {
      * @return all entries as {@link ZipArchiveEntry} instances
      */
     public Enumeration<ZipArchiveEntry> getEntries() {
+        if (centralDirectoryIndex != null) {
+            final CentralDirectoryIndex index = centralDirectoryIndex;
+            return new Enumeration<ZipArchiveEntry>() {
+
+                private int next;
+
+                @Override
+                public boolean hasMoreElements() {
+                    return next < index.size();
+                }
+
+                @Override
+                public ZipArchiveEntry nextElement() {
+                    if (next >= index.size()) {
+                        throw new NoSuchElementException();
+                    }
+                    return readCompactEntry(next++);
+                }
+            };
+        }
         return Collections.enumeration(entries);
     }
 
@@ -283,7 +417,15 @@ public class ZipFile implements Closeable {
      * @since 1.1
      */
     public Enumeration<ZipArchiveEntry> getEntriesInPhysicalOrder() {
-        final ZipArchiveEntry[] allEntries = entries.toArray(new ZipArchiveEntry[entries.size()]);
+        final ZipArchiveEntry[] allEntries;
+        if (centralDirectoryIndex != null) {
+            allEntries = new ZipArchiveEntry[centralDirectoryIndex.size()];
+            for (int i = 0; i < allEntries.length; i++) {
+                allEntries[i] = readCompactEntry(i);
+            }
+        } else {
+            allEntries = entries.toArray(new ZipArchiveEntry[entries.size()]);
+        }
         Arrays.sort(allEntries, offsetComparator);
         return Collections.enumeration(Arrays.asList(allEntries));
     }
@@ -297,6 +439,10 @@ public class ZipFile implements Closeable {
      * @return the ZipArchiveEntry corresponding to the given name - or {@code null} if not present.
      */
     public ZipArchiveEntry getEntry(final String name) {
+        if (centralDirectoryIndex != null) {
+            final List<ZipArchiveEntry> entriesOfThatName = findCompactEntries(name, true);
+            return entriesOfThatName.isEmpty() ? null : entriesOfThatName.get(0);
+        }
         final LinkedList<ZipArchiveEntry> entriesOfThatName = nameMap.get(name);
         return entriesOfThatName != null ? entriesOfThatName.getFirst() : null;
     }
@@ -308,6 +454,9 @@ public class ZipFile implements Closeable {
      * @since 1.6
      */
     public Iterable<ZipArchiveEntry> getEntries(final String name) {
+        if (centralDirectoryIndex != null) {
+            return findCompactEntries(name, false);
+        }
         final List<ZipArchiveEntry> entriesOfThatName = nameMap.get(name);
         return entriesOfThatName != null ? entriesOfThatName : Collections.<ZipArchiveEntry> emptyList();
     }
@@ -320,7 +469,10 @@ public class ZipFile implements Closeable {
      */
     public Iterable<ZipArchiveEntry> getEntriesInPhysicalOrder(final String name) {
         ZipArchiveEntry[] entriesOfThatName = new ZipArchiveEntry[0];
-        if (nameMap.containsKey(name)) {
+        if (centralDirectoryIndex != null) {
+            entriesOfThatName = findCompactEntries(name, false).toArray(entriesOfThatName);
+            Arrays.sort(entriesOfThatName, offsetComparator);
+        } else if (nameMap.containsKey(name)) {
             entriesOfThatName = nameMap.get(name).toArray(entriesOfThatName);
             Arrays.sort(entriesOfThatName, offsetComparator);
         }
@@ -353,9 +505,16 @@ public class ZipFile implements Closeable {
         if (!(ze instanceof Entry)) {
             return null;
         }
-        final long start = ze.getDataOffset();
+        long start = ze.getDataOffset();
         if (start == EntryStreamOffsets.OFFSET_UNKNOWN) {
-            return null;
+            if (centralDirectoryIndex == null) {
+                return null;
+            }
+            try {
+                start = getDataOffset(ze);
+            } catch (IOException e) {
+                return null;
+            }
         }
         return createBoundedInputStream(start, ze.getCompressedSize());
     }
@@ -367,6 +526,18 @@ public class ZipFile implements Closeable {
      * @throws IOException if unable to create an input stream from the zipentry
      */
     public InputStream getInputStream(final ZipArchiveEntry ze) throws IOException {
+        final InputStream inputStream = getUnverifiedInputStream(ze);
+        if (inputStream != null && isVerifiable(ze)) {
+            return new CRC32VerifyingInputStream(inputStream, ze);
+        }
+        return inputStream;
+    }
+
+    private boolean isVerifiable(final ZipArchiveEntry ze) {
+        return crcVerification && ze.getCrc() != ZipArchiveEntry.CRC_UNKNOWN && ze.getSize() != ArchiveEntry.SIZE_UNKNOWN;
+    }
+
+    private InputStream getUnverifiedInputStream(final ZipArchiveEntry ze) throws IOException {
         if (!(ze instanceof Entry)) {
             return null;
         }
@@ -377,35 +548,29 @@ public class ZipFile implements Closeable {
         // doesn't get closed if the method is not supported - which
         // should never happen because of the checkRequestedFeatures
         // call above
-        final InputStream is = new BufferedInputStream(createBoundedInputStream(start, ze.getCompressedSize())); // NOSONAR
-        switch (ZipMethod.getMethodByCode(ze.getMethod())) {
+        final ZipMethod method = ZipMethod.getMethodByCode(ze.getMethod());
+        switch (method) {
         case STORED:
-            return new StoredStatisticsStream(is);
+            return new StoredStatisticsStream(new BufferedInputStream(createBoundedInputStream(start, ze.getCompressedSize()))); // NOSONAR
         case UNSHRINKING:
-            return new UnshrinkingInputStream(is);
+            return new UnshrinkingInputStream(new BufferedInputStream(createBoundedInputStream(start, ze.getCompressedSize()))); // NOSONAR
         case IMPLODING:
-            return new ExplodingInputStream(ze.getGeneralPurposeBit().getSlidingDictionarySize(), ze.getGeneralPurposeBit().getNumberOfShannonFanoTrees(), is);
+            // the trees are read byte by byte before the bit stream
+            return new ExplodingInputStream(ze.getGeneralPurposeBit().getSlidingDictionarySize(), ze.getGeneralPurposeBit().getNumberOfShannonFanoTrees(),
+                    new BufferedInputStream(createBoundedInputStream(start, ze.getCompressedSize())), BitInputStream.DEFAULT_BUFFER_SIZE); // NOSONAR
         case DEFLATED:
-            final Inflater inflater = new Inflater(true);
-            // Inflater with nowrap=true has this odd contract for a zero padding
-            // byte following the data stream; this used to be zlib's requirement
-            // and has been fixed a long time ago, but the contract persists so
-            // we comply.
-            // https://docs.oracle.com/javase/7/docs/api/java/util/zip/Inflater.html#Inflater(boolean)
-            return new InflaterInputStreamWithStatistics(new SequenceInputStream(is, new ByteArrayInputStream(ONE_ZERO_BYTE)), inflater) {
-                @Override
-                public void close() throws IOException {
-                    try {
-                        super.close();
-                    } finally {
-                        inflater.end();
-                    }
-                }
-            };
+            // reads the channel directly in the pooled input buffer of the inflater
+            return new PooledInflaterInputStream(createBoundedInputStream(start, ze.getCompressedSize()), InflaterPool.getInstance());
         case BZIP2:
-            return new BZip2CompressorInputStream(is);
+            int availableProcessors = Runtime.getRuntime().availableProcessors();
+            if (availableProcessors > 1 && ze.getCompressedSize() >= PARALLEL_BZIP2_MIN_SIZE) {
+                return new ParallelBZip2CompressorInputStream(createBoundedInputStream(start, ze.getCompressedSize()),
+                        availableProcessors * PARALLEL_BZIP2_BLOCKS_PER_PROCESSOR);
+            }
+            // bit streams read the entry by blocks themselves
+            return new BZip2CompressorInputStream(createBoundedInputStream(start, ze.getCompressedSize()), false, BitInputStream.DEFAULT_BUFFER_SIZE);
         case ENHANCED_DEFLATED:
-            return new Deflate64CompressorInputStream(is);
+            return new Deflate64CompressorInputStream(createBoundedInputStream(start, ze.getCompressedSize()), BitInputStream.DEFAULT_BUFFER_SIZE);
         case AES_ENCRYPTED:
         case EXPANDING_LEVEL_1:
         case EXPANDING_LEVEL_2:
@@ -420,8 +585,71 @@ public class ZipFile implements Closeable {
         case WAVPACK:
         case XZ:
         default:
-            throw new UnsupportedZipFeatureException(ZipMethod.getMethodByCode(ze.getMethod()), ze);
+            throw new UnsupportedZipFeatureException(method, ze);
+        }
+    }
+
+    /**
+     * Reads the whole content of the given entry in an array sized by the uncompressed size of the central directory. Deflated entries are inflated directly in this array
+     * and stored entries are read from the archive without intermediate buffer.
+     * @param ze the entry to read.
+     * @return the content of the entry, or null if it is not an entry of this archive.
+     * @throws IOException if unable to read the entry
+     */
+    public byte[] readFully(final ZipArchiveEntry ze) throws IOException {
+        if (!(ze instanceof Entry)) {
+            return null;
+        }
+        final InputStream inputStream;
+        if (ze.getMethod() == ZipMethod.STORED.getCode()) {
+            ZipUtil.checkRequestedFeatures(ze);
+            inputStream = createBoundedInputStream(getDataOffset(ze), ze.getCompressedSize());
+        } else {
+            inputStream = getUnverifiedInputStream(ze);
+        }
+        final byte[] content;
+        try {
+            content = IOUtils.readFully(inputStream, ze.getSize());
+        } finally {
+            inputStream.close();
+        }
+        if (isVerifiable(ze)) {
+            // one update over the whole content
+            final CRC32 crc32 = new CRC32();
+            crc32.update(content, 0, content.length);
+            CRC32VerifyingInputStream.verify(ze, content.length, crc32.getValue());
         }
+        return content;
+    }
+
+    /**
+     * Enables the verification of the size and CRC-32 of the central directory when an entry is fully read by {@link #getInputStream(ZipArchiveEntry)} or
+     * {@link #readFully(ZipArchiveEntry)}. A mismatch raises a {@link ZipException}. Entries accessed in place by {@link #getStoredDataOffset(ZipArchiveEntry)} are not
+     * verified.
+     * @param crcVerification true to verify entries
+     */
+    public void setCrcVerification(final boolean crcVerification) {
+        this.crcVerification = crcVerification;
+    }
+
+    /**
+     * @return whether entries are verified
+     */
+    public boolean isCrcVerification() {
+        return crcVerification;
+    }
+
+    /**
+     * Gives the position of the content of an uncompressed entry, so it can be accessed in place.
+     * @param ze the entry.
+     * @return the offset of the content in the archive, or -1 if the entry is compressed, not readable or not an entry of this archive.
+     * @throws IOException if unable to read the local file header
+     */
+    public long getStoredDataOffset(final ZipArchiveEntry ze) throws IOException {
+        if (!(ze instanceof Entry) || ze.getMethod() != ZipMethod.STORED.getCode() || !ZipUtil.canHandleEntryData(ze) || ze.getSize() != ze.getCompressedSize()) {
+            return -1;
+        }
+        return getDataOffset(ze);
     }
 
     /**
@@ -459,6 +687,16 @@ public class ZipFile implements Closeable {
     /* external file attributes */ + WORD
     /* relative offset of local header */ + WORD;
 
+    /**
+     * Offset of the compressed size inside the fixed part of a "central directory" entry.
+     */
+    private static final int CFH_SIZES_OFFSET = SHORT + SHORT + SHORT + SHORT + WORD + WORD;
+
+    /**
+     * Offset of the file name length inside the fixed part of a "central directory" entry.
+     */
+    private static final int CFH_FILE_NAME_LENGTH_OFFSET = CFH_SIZES_OFFSET + WORD + WORD;
+
     private static final long CFH_SIG = ZipLong.getValue(ZipLong.CFH_SIG.getBytes());
 
     /**
@@ -499,87 +737,262 @@ public class ZipFile implements Closeable {
     private void readCentralDirectoryEntry(final Map<ZipArchiveEntry, NameAndComment> noUTF8Flag) throws IOException {
         cfhBbuf.rewind();
         IOUtils.readFully(archive, cfhBbuf);
+
+        final byte[] fileName = new byte[ZipShort.getValue(cfhBuf, CFH_FILE_NAME_LENGTH_OFFSET)];
+        IOUtils.readFully(archive, ByteBuffer.wrap(fileName));
+
+        final byte[] cdExtraData = new byte[ZipShort.getValue(cfhBuf, CFH_FILE_NAME_LENGTH_OFFSET + SHORT)];
+        IOUtils.readFully(archive, ByteBuffer.wrap(cdExtraData));
+
+        final byte[] comment = new byte[ZipShort.getValue(cfhBuf, CFH_FILE_NAME_LENGTH_OFFSET + SHORT + SHORT)];
+        IOUtils.readFully(archive, ByteBuffer.wrap(comment));
+
+        final Entry ze = createEntry(cfhBuf, fileName, cdExtraData, comment);
+        // data offset will be filled later
+        entries.add(ze);
+
+        if (!lazyEntries && !ze.getGeneralPurposeBit().usesUTF8ForNames() && useUnicodeExtraFields) {
+            noUTF8Flag.put(ze, new NameAndComment(fileName, comment));
+        }
+    }
+
+    /**
+     * Creates an entry from the fixed part of a central directory record (without signature) and its variable parts.
+     */
+    private Entry createEntry(final byte[] cfh, final byte[] fileName, final byte[] cdExtraData, final byte[] comment) throws IOException {
         int off = 0;
         final Entry ze = new Entry();
 
-        final int versionMadeBy = ZipShort.getValue(cfhBuf, off);
+        final int versionMadeBy = ZipShort.getValue(cfh, off);
         off += SHORT;
         ze.setVersionMadeBy(versionMadeBy);
         ze.setPlatform((versionMadeBy >> BYTE_SHIFT) & NIBLET_MASK);
 
-        ze.setVersionRequired(ZipShort.getValue(cfhBuf, off));
+        ze.setVersionRequired(ZipShort.getValue(cfh, off));
         off += SHORT; // version required
 
-        final GeneralPurposeBit gpFlag = GeneralPurposeBit.parse(cfhBuf, off);
+        final GeneralPurposeBit gpFlag = GeneralPurposeBit.parse(cfh, off);
         final boolean hasUTF8Flag = gpFlag.usesUTF8ForNames();
         final ZipEncoding entryEncoding = hasUTF8Flag ? ZipEncodingHelper.UTF8_ZIP_ENCODING : zipEncoding;
         if (hasUTF8Flag) {
             ze.setNameSource(ZipArchiveEntry.NameSource.NAME_WITH_EFS_FLAG);
         }
         ze.setGeneralPurposeBit(gpFlag);
-        ze.setRawFlag(ZipShort.getValue(cfhBuf, off));
+        ze.setRawFlag(ZipShort.getValue(cfh, off));
 
         off += SHORT;
 
         // noinspection MagicConstant
-        ze.setMethod(ZipShort.getValue(cfhBuf, off));
+        ze.setMethod(ZipShort.getValue(cfh, off));
         off += SHORT;
 
-        final long time = ZipUtil.dosToJavaTime(ZipLong.getValue(cfhBuf, off));
+        final long time = ZipUtil.dosToJavaTime(ZipLong.getValue(cfh, off));
         ze.setTime(time);
         off += WORD;
 
-        ze.setCrc(ZipLong.getValue(cfhBuf, off));
+        ze.setCrc(ZipLong.getValue(cfh, off));
         off += WORD;
 
-        ze.setCompressedSize(ZipLong.getValue(cfhBuf, off));
+        ze.setCompressedSize(ZipLong.getValue(cfh, off));
         off += WORD;
 
-        ze.setSize(ZipLong.getValue(cfhBuf, off));
+        ze.setSize(ZipLong.getValue(cfh, off));
         off += WORD;
 
-        final int fileNameLen = ZipShort.getValue(cfhBuf, off);
-        off += SHORT;
-
-        final int extraLen = ZipShort.getValue(cfhBuf, off);
-        off += SHORT;
+        // file name, extra field and comment lengths
+        off += SHORT + SHORT + SHORT;
 
-        final int commentLen = ZipShort.getValue(cfhBuf, off);
+        ze.setDiskNumberStart(ZipShort.getValue(cfh, off));
         off += SHORT;
 
-        ze.setDiskNumberStart(ZipShort.getValue(cfhBuf, off));
+        ze.setInternalAttributes(ZipShort.getValue(cfh, off));
         off += SHORT;
 
-        ze.setInternalAttributes(ZipShort.getValue(cfhBuf, off));
-        off += SHORT;
-
-        ze.setExternalAttributes(ZipLong.getValue(cfhBuf, off));
+        ze.setExternalAttributes(ZipLong.getValue(cfh, off));
         off += WORD;
 
-        final byte[] fileName = new byte[fileNameLen];
-        IOUtils.readFully(archive, ByteBuffer.wrap(fileName));
         ze.setName(entryEncoding.decode(fileName), fileName);
 
         // LFH offset,
-        ze.setLocalHeaderOffset(ZipLong.getValue(cfhBuf, off));
-        // data offset will be filled later
-        entries.add(ze);
+        ze.setLocalHeaderOffset(ZipLong.getValue(cfh, off));
 
-        final byte[] cdExtraData = new byte[extraLen];
-        IOUtils.readFully(archive, ByteBuffer.wrap(cdExtraData));
-        ze.setCentralDirectoryExtra(cdExtraData);
+        ze.setStreamContiguous(true);
 
-        setSizesAndOffsetFromZip64Extra(ze);
+        if (!lazyEntries) {
+            ze.setCentralDirectoryExtra(cdExtraData);
+            setSizesAndOffsetFromZip64Extra(ze);
+            ze.setComment(entryEncoding.decode(comment));
+            return ze;
+        }
 
-        final byte[] comment = new byte[commentLen];
-        IOUtils.readFully(archive, ByteBuffer.wrap(comment));
-        ze.setComment(entryEncoding.decode(comment));
+        ze.zipFile = this;
+        final boolean useUnicodeExtraFieldsOfEntry = !hasUTF8Flag && useUnicodeExtraFields;
+        if (ze.getSize() == ZIP64_MAGIC || ze.getCompressedSize() == ZIP64_MAGIC || ze.getLocalHeaderOffset() == ZIP64_MAGIC
+                || ze.getDiskNumberStart() == ZIP64_MAGIC_SHORT || (useUnicodeExtraFieldsOfEntry && hasExtraField(cdExtraData, UnicodePathExtraField.UPATH_ID))) {
+            // sizes, offset or name depend on extra fields
+            ze.setCentralDirectoryExtra(cdExtraData);
+            setSizesAndOffsetFromZip64Extra(ze);
+            if (useUnicodeExtraFieldsOfEntry) {
+                ZipUtil.setNameAndCommentFromExtraFields(ze, fileName, null);
+            }
+            ze.setLazyExtra(null, true);
+        } else {
+            ze.setLazyExtra(cdExtraData, true);
+        }
+        if (comment.length != 0) {
+            ze.setLazyComment(comment, entryEncoding, useUnicodeExtraFieldsOfEntry);
+        } else {
+            ze.setComment("");
+        }
+        return ze;
+    }
 
-        if (!hasUTF8Flag && useUnicodeExtraFields) {
-            noUTF8Flag.put(ze, new NameAndComment(fileName, comment));
+    /**
+     * Looks for an extra field without parsing.
+     */
+    private static boolean hasExtraField(final byte[] extraData, final ZipShort headerId) {
+        final int id = headerId.getValue();
+        int off = 0;
+        while (off + WORD <= extraData.length) {
+            if (ZipShort.getValue(extraData, off) == id) {
+                return true;
+            }
+            off += WORD + ZipShort.getValue(extraData, off + SHORT);
         }
+        return false;
+    }
 
-        ze.setStreamContiguous(true);
+    /**
+     * Identifies the archive by the records following the central directory, they contain its offset, length and entry count.
+     * @return null if the archive cannot have a sidecar index
+     */
+    private CentralDirectoryIndexFile createCentralDirectoryIndexFile(final long centralDirectoryOffset, final long archiveLastModified) throws IOException {
+        final long archiveSize = archive.size();
+        final long centralDirectoryLength = centralDirectoryEnd - centralDirectoryOffset;
+        final long endRecordsLength = archiveSize - centralDirectoryEnd;
+        if (centralDirectoryLength < 0 || centralDirectoryLength > Integer.MAX_VALUE || endRecordsLength < 0 || endRecordsLength > MAX_END_RECORDS_LENGTH) {
+            return null;
+        }
+        final byte[] endRecords = new byte[(int) endRecordsLength];
+        final BoundedInputStream boundedInputStream = createBoundedInputStream(centralDirectoryEnd, endRecords.length);
+        if (IOUtils.readFully(boundedInputStream, endRecords) != endRecords.length) {
+            throw new EOFException();
+        }
+        final CRC32 crc32 = new CRC32();
+        crc32.update(endRecords);
+        return new CentralDirectoryIndexFile(archiveSize, archiveLastModified, crc32.getValue(), centralDirectoryOffset, (int) centralDirectoryLength,
+                useUnicodeExtraFields, encoding);
+    }
+
+    /**
+     * Reads the whole central directory in a buffer and indexes its records by name. Expects the archive to be positioned at the central directory.
+     */
+    private void populateCompactIndex(final boolean offHeap) throws IOException {
+        final long start = archive.position();
+        final long length = centralDirectoryEnd - start;
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new ZipException("Central directory of " + archiveName + " cannot be indexed");
+        }
+        final ByteBuffer centralDirectory = offHeap ? ByteBuffer.allocateDirect((int) length) : ByteBuffer.allocate((int) length);
+        IOUtils.readFully(archive, centralDirectory);
+        centralDirectory.flip();
+        centralDirectory.order(ByteOrder.LITTLE_ENDIAN);
+
+        if ((length < WORD || (centralDirectory.getInt(0) & 0xFFFFFFFFL) != CFH_SIG) && startsWithLocalFileHeader()) {
+            throw new IOException("Central directory is empty, can't expand" + " corrupt archive.");
+        }
+
+        int[] recordOffsets = new int[16];
+        int[] nameHashes = new int[16];
+        int count = 0;
+        int off = 0;
+        final byte[] cfh = new byte[CFH_LEN];
+        while (off + WORD + CFH_LEN <= length && (centralDirectory.getInt(off) & 0xFFFFFFFFL) == CFH_SIG) {
+            centralDirectory.position(off + WORD);
+            centralDirectory.get(cfh);
+            final int fileNameLen = ZipShort.getValue(cfh, CFH_FILE_NAME_LENGTH_OFFSET);
+            final int extraLen = ZipShort.getValue(cfh, CFH_FILE_NAME_LENGTH_OFFSET + SHORT);
+            final int commentLen = ZipShort.getValue(cfh, CFH_FILE_NAME_LENGTH_OFFSET + SHORT + SHORT);
+            final int next = off + WORD + CFH_LEN + fileNameLen + extraLen + commentLen;
+            if (next > length) {
+                throw new EOFException();
+            }
+            final String name;
+            final boolean zip64 = ZipLong.getValue(cfh, CFH_SIZES_OFFSET) == ZIP64_MAGIC || ZipLong.getValue(cfh, CFH_SIZES_OFFSET + WORD) == ZIP64_MAGIC
+                    || ZipLong.getValue(cfh, CFH_LEN - WORD) == ZIP64_MAGIC || ZipShort.getValue(cfh, CFH_LEN - WORD - WORD - SHORT - SHORT) == ZIP64_MAGIC_SHORT;
+            final boolean hasUTF8Flag = GeneralPurposeBit.parse(cfh, SHORT + SHORT).usesUTF8ForNames();
+            if (zip64 || (!hasUTF8Flag && useUnicodeExtraFields)) {
+                // decode it all now, so a corrupt record fails here and not on lookup
+                name = readCompactEntry(centralDirectory, off, cfh).getName();
+            } else {
+                final byte[] fileName = new byte[fileNameLen];
+                centralDirectory.get(fileName);
+                name = (hasUTF8Flag ? ZipEncodingHelper.UTF8_ZIP_ENCODING : zipEncoding).decode(fileName);
+            }
+            if (count == recordOffsets.length) {
+                recordOffsets = Arrays.copyOf(recordOffsets, count * 2);
+                nameHashes = Arrays.copyOf(nameHashes, count * 2);
+            }
+            recordOffsets[count] = off;
+            nameHashes[count] = name.hashCode();
+            count++;
+            off = next;
+        }
+        centralDirectory.clear();
+        centralDirectoryIndex = new CentralDirectoryIndex(offHeap ? centralDirectory : centralDirectory.asReadOnlyBuffer(), Arrays.copyOf(recordOffsets, count),
+                Arrays.copyOf(nameHashes, count));
+    }
+
+    /**
+     * @param cfh buffer for the fixed part of the record
+     */
+    private Entry readCompactEntry(final ByteBuffer centralDirectory, final int recordOffset, final byte[] cfh) throws IOException {
+        centralDirectory.position(recordOffset + WORD);
+        centralDirectory.get(cfh);
+        final byte[] fileName = new byte[ZipShort.getValue(cfh, CFH_FILE_NAME_LENGTH_OFFSET)];
+        centralDirectory.get(fileName);
+        final byte[] cdExtraData = new byte[ZipShort.getValue(cfh, CFH_FILE_NAME_LENGTH_OFFSET + SHORT)];
+        centralDirectory.get(cdExtraData);
+        final byte[] comment = new byte[ZipShort.getValue(cfh, CFH_FILE_NAME_LENGTH_OFFSET + SHORT + SHORT)];
+        centralDirectory.get(comment);
+        return createEntry(cfh, fileName, cdExtraData, comment);
+    }
+
+    private Entry readCompactEntry(final int index) {
+        try {
+            return readCompactEntry(centralDirectoryIndex.getCentralDirectory(), centralDirectoryIndex.getRecordOffset(index), new byte[CFH_LEN]);
+        } catch (IOException e) {
+            // records which may fail were decoded when the index was built
+            throw new IllegalStateException("Corrupt central directory record", e);
+        }
+    }
+
+    /**
+     * @return entries of that name in central directory order
+     */
+    private List<ZipArchiveEntry> findCompactEntries(final String name, final boolean firstOnly) {
+        final CentralDirectoryIndex index = centralDirectoryIndex;
+        final int nameHash = name.hashCode();
+        List<ZipArchiveEntry> result = Collections.emptyList();
+        int slot = index.firstSlot(nameHash);
+        int entryIndex = index.getEntryIndex(slot);
+        while (entryIndex != -1) {
+            if (index.getNameHash(entryIndex) == nameHash) {
+                final Entry ze = readCompactEntry(entryIndex);
+                if (name.equals(ze.getName())) {
+                    if (firstOnly) {
+                        return Collections.<ZipArchiveEntry> singletonList(ze);
+                    }
+                    if (result.isEmpty()) {
+                        result = new ArrayList<ZipArchiveEntry>(1);
+                    }
+                    result.add(ze);
+                }
+            }
+            slot = index.nextSlot(slot);
+            entryIndex = index.getEntryIndex(slot);
+        }
+        return result;
     }
 
     /**
@@ -637,6 +1050,12 @@ public class ZipFile implements Closeable {
     /* the starting disk number */ + WORD
     /* zipfile comment length */ + SHORT;
 
+    /**
+     * Maximum length of the records following the central directory for a sidecar index: zip64 records with a small extensible data sector and the "End of central directory
+     * record" with a file comment.
+     */
+    private static final int MAX_END_RECORDS_LENGTH = 1024 * 1024;
+
     /**
      * Maximum length of the "End of central directory record" with a file comment.
      */
@@ -738,7 +1157,8 @@ public class ZipFile implements Closeable {
         skipBytes(ZIP64_EOCDL_LOCATOR_OFFSET - WORD /* signature has already been read */);
         dwordBbuf.rewind();
         IOUtils.readFully(archive, dwordBbuf);
-        archive.position(ZipEightByteInteger.getLongValue(dwordBuf));
+        centralDirectoryEnd = ZipEightByteInteger.getLongValue(dwordBuf);
+        archive.position(centralDirectoryEnd);
 
         wordBbuf.rewind();
         IOUtils.readFully(archive, wordBbuf);
@@ -757,6 +1177,7 @@ public class ZipFile implements Closeable {
      * &quot;End of central dir record&quot;.
      */
     private void positionAtCentralDirectory32() throws IOException {
+        centralDirectoryEnd = archive.position();
         skipBytes(CFD_LOCATOR_OFFSET);
         wordBbuf.rewind();
         IOUtils.readFully(archive, wordBbuf);
@@ -898,12 +1319,39 @@ public class ZipFile implements Closeable {
     private long getDataOffset(final ZipArchiveEntry ze) throws IOException {
         long s = ze.getDataOffset();
         if (s == EntryStreamOffsets.OFFSET_UNKNOWN) {
-            setDataOffset(ze);
-            return ze.getDataOffset();
+            readLocalFileHeaderLengths(ze);
+            s = ze.getDataOffset();
         }
         return s;
     }
 
+    /**
+     * Sets the data offset of the entry. May be called concurrently, so the archive position and shared buffers are not used.
+     * @return the length of the local extra data
+     */
+    private int readLocalFileHeaderLengths(final ZipArchiveEntry ze) throws IOException {
+        final long offset = ze.getLocalHeaderOffset();
+        final byte[] lengths = new byte[SHORT + SHORT];
+        final BoundedInputStream boundedInputStream = createBoundedInputStream(offset + LFH_OFFSET_FOR_FILENAME_LENGTH, lengths.length);
+        if (IOUtils.readFully(boundedInputStream, lengths) != lengths.length) {
+            throw new EOFException();
+        }
+        final int fileNameLen = ZipShort.getValue(lengths, 0);
+        final int extraFieldLen = ZipShort.getValue(lengths, SHORT);
+        ze.setDataOffset(offset + LFH_OFFSET_FOR_FILENAME_LENGTH + SHORT + SHORT + fileNameLen + extraFieldLen);
+        return extraFieldLen;
+    }
+
+    private byte[] readLocalFileDataExtra(final ZipArchiveEntry ze) throws IOException {
+        final int extraFieldLen = readLocalFileHeaderLengths(ze);
+        final byte[] localExtraData = new byte[extraFieldLen];
+        final BoundedInputStream boundedInputStream = createBoundedInputStream(ze.getDataOffset() - extraFieldLen, extraFieldLen);
+        if (IOUtils.readFully(boundedInputStream, localExtraData) != extraFieldLen) {
+            throw new EOFException();
+        }
+        return localExtraData;
+    }
+
     /**
      * local file header signature
      */
@@ -923,7 +1371,13 @@ public class ZipFile implements Closeable {
      * Creates new BoundedInputStream, according to implementation of underlying archive channel.
      */
     private BoundedInputStream createBoundedInputStream(final long start, final long remaining) {
-        return archive instanceof FileChannel ? new BoundedFileChannelInputStream(start, remaining) : new BoundedInputStream(start, remaining);
+        if (archive instanceof FileChannel) {
+            return new BoundedFileChannelInputStream(start, remaining);
+        }
+        if (archive instanceof PositionalSeekableByteChannel) {
+            return new BoundedPositionalInputStream(start, remaining);
+        }
+        return new BoundedInputStream(start, remaining);
     }
 
     /**
@@ -1017,6 +1471,25 @@ public class ZipFile implements Closeable {
         }
     }
 
+    /**
+     * Lock-free implementation of BoundedInputStream for channels supporting positioned reads.
+     */
+    private class BoundedPositionalInputStream extends BoundedInputStream {
+        private final PositionalSeekableByteChannel archive;
+
+        BoundedPositionalInputStream(final long start, final long remaining) {
+            super(start, remaining);
+            archive = (PositionalSeekableByteChannel) ZipFile.this.archive;
+        }
+
+        @Override
+        protected int read(final long pos, final ByteBuffer buf) throws IOException {
+            int read = archive.read(buf, pos);
+            buf.flip();
+            return read;
+        }
+    }
+
     private static final class NameAndComment {
         private final byte[] name;
 
@@ -1066,9 +1539,62 @@ public class ZipFile implements Closeable {
      */
     private static class Entry extends ZipArchiveEntry {
 
+        /**
+         * Set in lazy modes to read the local file header on demand.
+         */
+        private ZipFile zipFile;
+
+        private volatile byte[] lazyComment;
+
+        private ZipEncoding lazyCommentEncoding;
+
+        private boolean lazyUnicodeComment;
+
         Entry() {
         }
 
+        void setLazyComment(final byte[] comment, final ZipEncoding encoding, final boolean useUnicodeExtraFields) {
+            lazyCommentEncoding = encoding;
+            lazyUnicodeComment = useUnicodeExtraFields;
+            lazyComment = comment;
+        }
+
+        @Override
+        public String getComment() {
+            if (lazyComment != null) {
+                synchronized (this) {
+                    final byte[] comment = lazyComment;
+                    if (comment != null) {
+                        try {
+                            super.setComment(lazyCommentEncoding.decode(comment));
+                        } catch (IOException e) {
+                            // no comment
+                        }
+                        if (lazyUnicodeComment) {
+                            ZipUtil.setCommentFromExtraFields(this, comment);
+                        }
+                        lazyComment = null;
+                    }
+                }
+            }
+            return super.getComment();
+        }
+
+        @Override
+        public void setComment(final String comment) {
+            super.setComment(comment);
+            lazyComment = null;
+        }
+
+        @Override
+        protected byte[] readLocalFileDataExtra() {
+            try {
+                return zipFile.readLocalFileDataExtra(this);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
         @Override
         public int hashCode() {
             return 3 * super.hashCode() + (int) getLocalHeaderOffset() + (int) (getLocalHeaderOffset() >> 32);
@@ -215,6 +215,13 @@ public abstract class ZipUtil {
             ze.setNameSource(ZipArchiveEntry.NameSource.UNICODE_EXTRA_FIELD);
         }
 
+        setCommentFromExtraFields(ze, commentBytes);
+    }
+
+    /**
+     * If the entry has an unicode comment field set the comment from it if the CRCs match.
+     */
+    static void setCommentFromExtraFields(final ZipArchiveEntry ze, final byte[] commentBytes) {
         if (commentBytes != null && commentBytes.length > 0) {
             final ZipExtraField cmtCandidate = ze.getExtraField(UnicodeCommentExtraField.UCOM_ID);
             final UnicodeCommentExtraField cmt = cmtCandidate instanceof UnicodeCommentExtraField ? (UnicodeCommentExtraField) cmtCandidate : null;
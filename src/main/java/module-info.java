@@ -22,4 +22,6 @@ module fr.gaellalire.vestige.core {
 
     requires static java.logging;
 
+    requires static java.management;
+
 }